@@ -0,0 +1,192 @@
+/***********************************
+ * Group 3 Submission
+ *
+ * BatchRunner Class
+ * Headless entry point: runs a saved test suite against all submissions and writes
+ * the results report, without starting JavaFX. Intended for scheduled regrades.
+ *
+ * Usage:
+ *   java BatchRunner --root <submissions folder> --save <test folder> --suite <suite title>
+ *                    [--code-path <subfolder>] [--parallel <workers>] [--compile-parallel <compilers>]
+ *                    [--timeout <seconds>] [--heap-mb <megabytes>] [--stack-kb <kilobytes>]
+ *                    [--cpu-seconds <seconds>]
+ *                    [--warm-pool | --batched] [--no-reuse] [--out <report file>]
+ ***********************************/
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BatchRunner
+{
+    private static final int EXIT_OK = 0; // Suite executed and report written
+    private static final int EXIT_FAILED = 1; // Suite could not be executed
+    private static final int EXIT_USAGE = 2; // Missing or invalid arguments
+
+    public static void main(String[] args)
+    {
+        System.exit(run(args));
+    }
+
+    // Runs the batch job described by the command-line arguments
+    // Returns the process exit code (0 = success)
+    public static int run(String[] args)
+    {
+        Map<String, String> options;
+        try
+        {
+            options = parseArguments(args);
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.err.println("Error: " + e.getMessage());
+            printUsage();
+            return EXIT_USAGE;
+        }
+
+        String root = options.get("--root");
+        String save = options.get("--save");
+        String suiteTitle = options.get("--suite");
+        if (root == null || save == null || suiteTitle == null)
+        {
+            System.err.println("Error: --root, --save and --suite are required");
+            printUsage();
+            return EXIT_USAGE;
+        }
+
+        Coordinator coordinator = new Coordinator();
+        coordinator.setRootFolder(root);
+        coordinator.setSaveFolder(save); // Loads test cases and suites from the save folder
+
+        TestSuite suite = coordinator.getListOfTestSuites().findSuiteByTitle(suiteTitle);
+        if (suite == null)
+        {
+            System.err.println("Error: No test suite titled '" + suiteTitle + "' found in " + save);
+            return EXIT_FAILED;
+        }
+        coordinator.setCurrentTestSuite(suite);
+
+        try
+        {
+            applySettings(coordinator.getExecutionSettings(), options);
+        }
+        catch (NumberFormatException e)
+        {
+            System.err.println("Error: Invalid number: " + e.getMessage());
+            return EXIT_USAGE;
+        }
+
+        File reportFile = options.containsKey("--out")
+            ? new File(options.get("--out"))
+            : new File(save, sanitizeFilename(suiteTitle) + "_results.txt");
+
+        try
+        {
+            long start = System.currentTimeMillis();
+            List<TestResult> results = coordinator.executeTestSuite(options.getOrDefault("--code-path", ""));
+            ResultsReport.save(results, reportFile, suiteTitle, coordinator.getLastStartupMeasurement());
+
+            long passed = results.stream().filter(r -> r.getStatus().equals("PASSED")).count();
+            System.out.println("Executed suite '" + suiteTitle + "': " + results.size() + " results, "
+                + passed + " passed, in " + (System.currentTimeMillis() - start) / 1000.0 + " s");
+            System.out.println("Report written to " + reportFile.getAbsolutePath());
+            return EXIT_OK;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error: Failed to execute test suite: " + e.getMessage());
+            return EXIT_FAILED;
+        }
+    }
+
+    // Copies the optional command-line settings into the execution settings
+    private static void applySettings(ExecutionSettings settings, Map<String, String> options)
+    {
+        if (options.containsKey("--parallel"))
+        {
+            settings.setWorkerCount(Integer.parseInt(options.get("--parallel")));
+        }
+        if (options.containsKey("--compile-parallel"))
+        {
+            settings.setCompileWorkerCount(Integer.parseInt(options.get("--compile-parallel")));
+        }
+        if (options.containsKey("--timeout"))
+        {
+            settings.setCaseTimeoutMillis(Long.parseLong(options.get("--timeout")) * 1000);
+        }
+        ResourceLimits limits = settings.getResourceLimits();
+        if (options.containsKey("--heap-mb"))
+        {
+            limits.setHeapMegabytes(Integer.parseInt(options.get("--heap-mb")));
+        }
+        if (options.containsKey("--stack-kb"))
+        {
+            limits.setStackKilobytes(Integer.parseInt(options.get("--stack-kb")));
+        }
+        if (options.containsKey("--cpu-seconds"))
+        {
+            limits.setCpuSeconds(Integer.parseInt(options.get("--cpu-seconds")));
+        }
+        if (options.containsKey("--warm-pool"))
+        {
+            settings.setRunMode(RunMode.WARM_POOL);
+        }
+        if (options.containsKey("--batched"))
+        {
+            settings.setRunMode(RunMode.BATCHED);
+        }
+        if (options.containsKey("--no-reuse"))
+        {
+            settings.setResultReuseEnabled(false);
+        }
+    }
+
+    // Parses "--name value" pairs and "--flag" switches
+    private static Map<String, String> parseArguments(String[] args)
+    {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++)
+        {
+            String name = args[i];
+            if (name.equals("--warm-pool") || name.equals("--batched") || name.equals("--no-reuse"))
+            {
+                options.put(name, "true");
+            }
+            else if (name.equals("--root") || name.equals("--save") || name.equals("--suite") || name.equals("--code-path")
+                || name.equals("--parallel") || name.equals("--compile-parallel") || name.equals("--timeout")
+                || name.equals("--heap-mb") || name.equals("--stack-kb") || name.equals("--cpu-seconds")
+                || name.equals("--out"))
+            {
+                if (i + 1 >= args.length)
+                {
+                    throw new IllegalArgumentException("Missing value for " + name);
+                }
+                options.put(name, args[++i]);
+            }
+            else
+            {
+                throw new IllegalArgumentException("Unknown option " + name);
+            }
+        }
+        return options;
+    }
+
+    // Prints the command-line usage to stderr
+    private static void printUsage()
+    {
+        System.err.println("Usage: java BatchRunner --root <submissions folder> --save <test folder> --suite <suite title>");
+        System.err.println("                        [--code-path <subfolder>] [--parallel <workers>] [--compile-parallel <compilers>]");
+        System.err.println("                        [--timeout <seconds>] [--heap-mb <megabytes>] [--stack-kb <kilobytes>]");
+        System.err.println("                        [--cpu-seconds <seconds>]");
+        System.err.println("                        [--warm-pool | --batched] [--no-reuse] [--out <report file>]");
+    }
+
+    // Helper to sanitize suite title to be a valid filename
+    // Additional: Same rule as the results screen's suggested filename
+    private static String sanitizeFilename(String name)
+    {
+        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+    }
+}
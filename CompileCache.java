@@ -0,0 +1,138 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/* Persistent cache of compiled student programs, keyed by a hash of their source files.
+* Each entry is a folder named after the hash containing:
+*   result.txt - "SUCCESS" or "FAILED" on the first line, then the compiler messages
+*   classes/   - the compiled class files (only for successful compiles)
+* Entries are written to a temporary folder first and then moved into place, so
+* parallel graders never see a half-written entry.*/
+public class CompileCache
+{
+    private static final String RESULT_FILE = "result.txt";
+    private static final String CLASSES_FOLDER = "classes";
+
+    private File cacheFolder; // Root folder holding one subfolder per source hash
+
+    // Constructor: uses (and creates if needed) the given folder for cache entries
+    public CompileCache(File cacheFolder)
+    {
+        this.cacheFolder = cacheFolder;
+    }
+
+    // Computes the cache key for a set of source files under a source root
+    // Additional: Covers file paths (relative to the root), file contents and the compiler's Java version.
+    public static String hashSources(File sourceRoot, List<File> sourceFiles) throws IOException
+    {
+        Path root = sourceRoot.getAbsoluteFile().toPath();
+        ContentHash hash = new ContentHash().add(System.getProperty("java.version"));
+        for (File sourceFile : sourceFiles)
+        {
+            hash.add(root.relativize(sourceFile.getAbsoluteFile().toPath()).toString().replace(File.separatorChar, '/'));
+            hash.add(Files.readAllBytes(sourceFile.toPath()));
+        }
+        return hash.toHex();
+    }
+
+    // Returns the cached compile result for the hash, or null if there is no entry
+    public CompileResult lookup(String sourceHash)
+    {
+        File resultFile = new File(getEntryFolder(sourceHash), RESULT_FILE);
+        if (!resultFile.isFile())
+        {
+            return null;
+        }
+        try
+        {
+            String content = new String(Files.readAllBytes(resultFile.toPath()), StandardCharsets.UTF_8);
+            int lineEnd = content.indexOf('\n');
+            String statusLine = lineEnd >= 0 ? content.substring(0, lineEnd) : content;
+            String output = lineEnd >= 0 ? content.substring(lineEnd + 1) : "";
+            return new CompileResult(statusLine.equals("SUCCESS"), output);
+        }
+        catch (IOException e)
+        {
+            return null; // Unreadable entry - treat as a miss and compile again
+        }
+    }
+
+    // Returns the folder holding the cached class files for the hash
+    public File getClassesFolder(String sourceHash)
+    {
+        return new File(getEntryFolder(sourceHash), CLASSES_FOLDER);
+    }
+
+    // Creates an empty folder to compile into before calling store()
+    public File createStagingFolder() throws IOException
+    {
+        Files.createDirectories(cacheFolder.toPath());
+        Path staging = Files.createTempDirectory(cacheFolder.toPath(), "staging-");
+        return Files.createDirectory(staging.resolve(CLASSES_FOLDER)).toFile();
+    }
+
+    // Stores a compile result, moving the staged class files into the cache
+    // Additional: If another grader stored the same hash first, its entry is kept and ours is discarded.
+    public void store(String sourceHash, CompileResult result, File stagedClassesFolder) throws IOException
+    {
+        Path staging = stagedClassesFolder.getParentFile().toPath();
+        String content = (result.isSuccess() ? "SUCCESS" : "FAILED") + "\n" + result.getOutput();
+        Files.write(staging.resolve(RESULT_FILE), content.getBytes(StandardCharsets.UTF_8));
+
+        Path entry = getEntryFolder(sourceHash).toPath();
+        try
+        {
+            Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (FileAlreadyExistsException | DirectoryNotEmptyException e)
+        {
+            deleteRecursively(staging); // Same sources were cached concurrently
+        }
+        catch (AtomicMoveNotSupportedException e)
+        {
+            Files.move(staging, entry);
+        }
+    }
+
+    // Deletes a folder and everything inside it
+    public static void deleteRecursively(Path folder) throws IOException
+    {
+        if (!Files.exists(folder))
+        {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try
+                {
+                    Files.delete(path);
+                }
+                catch (IOException e)
+                {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e)
+        {
+            throw e.getCause();
+        }
+    }
+
+    // Returns the folder of the entry for the hash
+    private File getEntryFolder(String sourceHash)
+    {
+        return new File(cacheFolder, sourceHash);
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// CompileDiagnostic is one compiler message: the source file and line it points at, its kind and its text
+// Additional: Parsed from the "file:line: kind: message" lines both the in-process compiler and javac print,
+// so results restored from the compile cache or the result store carry the same diagnostics.
+public class CompileDiagnostic
+{
+    private static final Pattern DIAGNOSTIC_LINE =
+        Pattern.compile("^(?:(.+\\.java):(\\d+): )?(error|warning|mandatory_warning|note|other): (.*)$");
+
+    private String file; // Path of the source file as reported by the compiler ("" if the message has none)
+    private long line; // Line number in that file (0 if the message has none)
+    private String kind; // "error", "warning", "mandatory_warning", "note" or "other"
+    private String message; // Message text (may span several lines)
+
+    public CompileDiagnostic(String file, long line, String kind, String message)
+    {
+        this.file = file;
+        this.line = line;
+        this.kind = kind;
+        this.message = message;
+    }
+
+    public String getFile() { return file; }
+    public long getLine() { return line; }
+    public String getKind() { return kind; }
+    public String getMessage() { return message; }
+
+    // Format for display: file name (without folders), line, kind and message
+    public String toDisplayString()
+    {
+        String location = file.isEmpty() ? "" : new File(file).getName() + ":" + line + ": ";
+        return location + kind + ": " + message;
+    }
+
+    // Parses compiler output into diagnostics
+    // Additional: Lines that don't start a diagnostic (further message lines, the quoted source line and
+    // the caret below it) are added to the message of the diagnostic before them. Other text is ignored.
+    public static List<CompileDiagnostic> parseAll(String output)
+    {
+        if (output == null || output.isEmpty())
+        {
+            return Collections.emptyList();
+        }
+        List<CompileDiagnostic> diagnostics = new ArrayList<>();
+        String file = null;
+        long line = 0;
+        String kind = null;
+        StringBuilder message = null;
+        for (String text : output.split("\r?\n"))
+        {
+            Matcher start = DIAGNOSTIC_LINE.matcher(text);
+            if (start.matches())
+            {
+                if (message != null)
+                {
+                    diagnostics.add(new CompileDiagnostic(file, line, kind, message.toString()));
+                }
+                file = start.group(1) != null ? start.group(1) : "";
+                line = start.group(2) != null ? Long.parseLong(start.group(2)) : 0;
+                kind = start.group(3);
+                message = new StringBuilder(start.group(4));
+            }
+            else if (message != null && !text.isBlank() && !text.matches("^\\d+ (errors?|warnings?)$"))
+            {
+                message.append("\n").append(text);
+            }
+        }
+        if (message != null)
+        {
+            diagnostics.add(new CompileDiagnostic(file, line, kind, message.toString()));
+        }
+        return diagnostics;
+    }
+}
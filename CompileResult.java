@@ -0,0 +1,21 @@
+import java.util.List;
+
+// CompileResult holds the outcome of compiling one student program
+// Additional: Keeps the compiler messages so they don't have to be reproduced by hand later.
+public class CompileResult
+{
+    private boolean success; // true if the compiler reported no errors
+    private String output; // Compiler messages (errors and warnings), empty if none
+    private List<CompileDiagnostic> diagnostics; // The messages split into file, line, kind and text
+
+    public CompileResult(boolean success, String output)
+    {
+        this.success = success;
+        this.output = output;
+        this.diagnostics = CompileDiagnostic.parseAll(output);
+    }
+
+    public boolean isSuccess() { return success; }
+    public String getOutput() { return output; }
+    public List<CompileDiagnostic> getDiagnostics() { return diagnostics; }
+}
@@ -0,0 +1,104 @@
+import java.io.File;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/* Compiles student programs inside the grading JVM using javax.tools.
+* One JavaCompiler instance is shared by the whole application, and file managers
+* are reused between compilations so the JDK class archives are only opened once.
+* This avoids starting a new 'javac' process (and JVM) for every submission.*/
+public class CompilerService
+{
+    private static CompilerService shared; // Instance used by every Program
+
+    private JavaCompiler compiler; // null when running on a JRE without a compiler
+    private ConcurrentLinkedQueue<StandardJavaFileManager> idleFileManagers; // File managers ready for reuse
+
+    // Constructor: looks up the system compiler (may be missing on a plain JRE)
+    private CompilerService()
+    {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        this.idleFileManagers = new ConcurrentLinkedQueue<>();
+    }
+
+    // Returns the compiler service shared by the whole application
+    public static synchronized CompilerService getShared()
+    {
+        if (shared == null)
+        {
+            shared = new CompilerService();
+        }
+        return shared;
+    }
+
+    // Returns true if an in-process compiler is available
+    // Additional: When false, Program falls back to running the external 'javac' command.
+    public boolean isAvailable()
+    {
+        return compiler != null;
+    }
+
+    // Compile the given source files with the given javac options
+    // Returns whether compilation succeeded along with all compiler messages
+    // Additional: Safe to call from several threads; each call borrows its own file manager.
+    public CompileResult compile(List<File> sourceFiles, List<String> options)
+    {
+        if (compiler == null)
+        {
+            return new CompileResult(false, "No Java compiler available in this runtime");
+        }
+
+        StandardJavaFileManager fileManager = borrowFileManager();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        StringWriter otherOutput = new StringWriter(); // Messages not reported as diagnostics
+        try
+        {
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+            JavaCompiler.CompilationTask task = compiler.getTask(otherOutput, fileManager, diagnostics, options, null, units);
+            boolean success = task.call();
+            return new CompileResult(success, formatDiagnostics(diagnostics.getDiagnostics()) + otherOutput);
+        }
+        catch (RuntimeException e)
+        {   // Invalid options or an internal compiler failure
+            return new CompileResult(false, "Compiler failure: " + e.getMessage());
+        }
+        finally
+        {
+            idleFileManagers.add(fileManager); // Return for reuse by the next compilation
+        }
+    }
+
+    // Takes an idle file manager, or creates a new one if all are in use
+    private StandardJavaFileManager borrowFileManager()
+    {
+        StandardJavaFileManager fileManager = idleFileManagers.poll();
+        if (fileManager == null)
+        {
+            fileManager = compiler.getStandardFileManager(null, Locale.getDefault(), null);
+        }
+        return fileManager;
+    }
+
+    // Formats diagnostics in the same "file:line: kind: message" style as command-line javac
+    private String formatDiagnostics(List<Diagnostic<? extends JavaFileObject>> diagnostics)
+    {
+        StringBuilder text = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics)
+        {
+            if (diagnostic.getSource() != null)
+            {
+                text.append(diagnostic.getSource().getName()).append(":").append(diagnostic.getLineNumber()).append(": ");
+            }
+            text.append(diagnostic.getKind().toString().toLowerCase(Locale.ROOT)).append(": ");
+            text.append(diagnostic.getMessage(Locale.getDefault())).append("\n");
+        }
+        return text.toString();
+    }
+}
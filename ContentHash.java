@@ -0,0 +1,70 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+// ContentHash builds SHA-256 hex keys used by the persistent caches (CompileCache, ResultStore)
+public class ContentHash
+{
+    private MessageDigest digest; // Running SHA-256 over every added part
+
+    // Constructor: starts an empty hash
+    public ContentHash()
+    {
+        try
+        {
+            this.digest = MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IllegalStateException("SHA-256 not available", e); // Every Java runtime is required to provide it
+        }
+    }
+
+    // Adds a part to the hash; parts are separated so ("ab", "c") and ("a", "bc") differ
+    public ContentHash add(byte[] part)
+    {
+        digest.update(Integer.toString(part.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        digest.update(part);
+        return this;
+    }
+
+    // Adds a text part (null is treated as empty text)
+    public ContentHash add(String part)
+    {
+        return add((part != null ? part : "").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Adds the contents of a file as one part, read a buffer at a time
+    // Additional: Gives the same hash as adding the file's bytes (or its UTF-8 text) with add().
+    public ContentHash add(File file) throws IOException
+    {
+        digest.update(Long.toString(file.length()).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file))
+        {
+            int read;
+            while ((read = in.read(buffer)) != -1)
+            {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return this;
+    }
+
+    // Returns the hash as a lowercase hex string
+    public String toHex()
+    {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest())
+        {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -3,15 +3,24 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class Coordinator
 {
+    private static final String CACHE_FOLDER_NAME = ".grader-cache"; // Hidden folder inside the save folder
+    private static final int LOAD_THREADS = 16; // Test case files read at the same time (I/O bound, e.g. network shares)
     private String rootFolder; // Path where student submissions are stored
     private String saveFolder; // Path where test cases and suites are saved
     private ListOfTestSuites listOfTestSuites; // Holds all loaded/created test suites
     private ListOfTestCases listOfTestCases; // Global pool of available test cases
     private ListOfPrograms listOfPrograms; // List of student programs to test
     private TestSuite currentTestSuite; // The test suite currently selected
+    private ExecutionSettings executionSettings; // Options used when executing a test suite (e.g. worker count)
+    private volatile ExecutionControl currentControl; // Cancels the run in progress (null when nothing runs)
+    private PackedTestLibrary packedLibrary; // Packed library of the save folder (null = one file per case/suite)
 
     // Constructor initializes lists and sets no current test suite
     /* Additional: Initializes internal lists so Coordinator starts in a clean state. */
@@ -21,6 +30,21 @@ public class Coordinator
         this.listOfTestCases = new ListOfTestCases();
         this.listOfPrograms = new ListOfPrograms();
         this.currentTestSuite = null;
+        this.executionSettings = new ExecutionSettings();
+    }
+
+    // Returns the options used when executing a test suite
+    /* Additional: Lets the UI adjust settings such as the number of parallel workers. */
+    public ExecutionSettings getExecutionSettings()
+    {
+        return executionSettings;
+    }
+
+    // Sets how many test cases may run at the same time during execution
+    /* Additional: Convenience shortcut for getExecutionSettings().setWorkerCount(...). */
+    public void setWorkerCount(int workerCount)
+    {
+        executionSettings.setWorkerCount(workerCount);
     }
 
     // Returns the folder containing student submissions
@@ -49,10 +73,112 @@ public class Coordinator
     public void setSaveFolder(String saveFolder)
     {
         this.saveFolder = saveFolder;
+        executionSettings.setCacheFolder(new File(saveFolder, CACHE_FOLDER_NAME)); // Compile cache lives with the tests
+        closePackedLibrary();
+        if (PackedTestLibrary.exists(new File(saveFolder)))
+        {
+            loadPackedLibrary(); // One data file instead of .testcase/.suite files
+            return;
+        }
         loadTestCasesFromFolder(); // Load .testcase files
         loadTestSuitesFromFolder(); // Load .suite files
     }
 
+    // Closes the packed library of the previous save folder (if any), writing its pending index changes
+    private void closePackedLibrary()
+    {
+        if (packedLibrary == null)
+        {
+            return;
+        }
+        try
+        {
+            packedLibrary.close();
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error closing packed test library: " + e.getMessage());
+        }
+        packedLibrary = null;
+    }
+
+    // Returns true if the save folder uses the packed library format (see PackedTestLibrary)
+    public boolean isLibraryPacked()
+    {
+        return packedLibrary != null;
+    }
+
+    // Packs all loaded test cases and suites into a single library file in the save folder
+    /* Additional: Import from the one-file-per-case layout. The old files are left in place as a backup,
+     * but the packed library is used from now on (also the next time this save folder is opened). */
+    public void packLibrary() throws IOException
+    {
+        if (saveFolder == null || saveFolder.isEmpty())
+        {
+            throw new IOException("Save folder not set");
+        }
+        if (packedLibrary == null)
+        {
+            packedLibrary = PackedTestLibrary.create(new File(saveFolder),
+                listOfTestCases.getTestCases(), listOfTestSuites.getSuites());
+        }
+    }
+
+    // Writes every test case and suite back to its own file and removes the packed library
+    /* Additional: Export to the one-file-per-case layout; the save folder then works like before packing.
+     * Files left over from before packing whose test case was deleted since are removed. Nothing is removed
+     * until every file was written, and the packed library stays in use if writing a file or deleting the
+     * library fails, so the save folder is never left half unpacked. */
+    public void unpackLibrary() throws IOException
+    {
+        if (packedLibrary == null)
+        {
+            return;
+        }
+        for (TestCase testCase : listOfTestCases.getTestCases())
+        {
+            testCase.saveToFile(saveFolder); // Also reads its data from the library before it is closed
+        }
+        for (TestSuite suite : listOfTestSuites.getSuites())
+        {
+            suite.saveToFile(saveFolder);
+        }
+
+        File folder = new File(saveFolder);
+        packedLibrary.close();
+        packedLibrary = null;
+        try
+        {
+            PackedTestLibrary.delete(folder);
+        }
+        catch (IOException e)
+        {
+            try
+            {
+                packedLibrary = PackedTestLibrary.open(folder); // Still the save folder's library - keep using it
+            }
+            catch (IOException reopenError)
+            {
+                e.addSuppressed(reopenError);
+            }
+            throw new IOException("Could not remove the packed library (is it open in another program?): "
+                + e.getMessage(), e);
+        }
+
+        File testCasesFolder = findFolderCaseInsensitive(folder, "test-cases");
+        File[] oldFiles = testCasesFolder != null ? testCasesFolder.listFiles((dir, name) -> name.endsWith(".testcase")) : null;
+        if (oldFiles != null)
+        {
+            for (File file : oldFiles)
+            {
+                if (listOfTestCases.getTestCaseByFilename(file.getName()) == null)
+                {
+                    file.delete();
+                }
+            }
+        }
+    }
+
     // Creates a new test suite and sets it as the current one
     /* Additional: Creates a new test suite container for grouping test cases. */
     public void createTestSuite(String title)
@@ -70,6 +196,11 @@ public class Coordinator
         {
             throw new IOException("Save folder not set");
         }
+        if (packedLibrary != null)
+        {
+            packedLibrary.saveTestSuite(suite);
+            return;
+        }
         suite.saveToFile(saveFolder);
     }
 
@@ -128,25 +259,75 @@ public class Coordinator
     }
 
     // Saves a test case to file and adds it to the global list
-    /* Additional: Adds a new test case to storage AND registers it in memory for immediate use. */
+    /* Additional: Adds a new test case to storage AND registers it in memory for immediate use.
+     * Saving a test case that is already registered (e.g. after an edit) does not add it twice. */
     public void createAndSaveTestCase(TestCase testCase) throws IOException
     {
         if (saveFolder == null || saveFolder.isEmpty())
         {
             throw new IOException("Save folder not set");
         }
-        testCase.saveToFile(saveFolder);
+        if (packedLibrary != null)
+        {
+            packedLibrary.saveTestCase(testCase);
+        }
+        else
+        {
+            testCase.saveToFile(saveFolder);
+        }
         listOfTestCases.addTestCase(testCase);
     }
 
+    // Gives a test case a new title (and so a new filename); save it afterwards with createAndSaveTestCase()
+    /* Additional: A packed library drops the entry under the old filename, so the old title doesn't come back
+     * the next time the save folder is opened. */
+    public void renameTestCase(TestCase testCase, String newTitle) throws IOException
+    {
+        String oldFilename = testCase.getFilename();
+        listOfTestCases.renameTestCase(testCase, newTitle);
+        if (packedLibrary != null && !oldFilename.equals(testCase.getFilename()))
+        {
+            packedLibrary.deleteTestCase(oldFilename);
+        }
+    }
+
+    // Removes a test case from the global list and deletes it from the save folder
+    /* Additional: Test suites still referring to it show it as "not found". */
+    public void deleteTestCase(TestCase testCase) throws IOException
+    {
+        listOfTestCases.removeTestCase(testCase);
+        if (saveFolder == null || saveFolder.isEmpty())
+        {
+            return;
+        }
+        if (packedLibrary != null)
+        {
+            packedLibrary.deleteTestCase(testCase.getFilename());
+            return;
+        }
+        // Large input / expected output is kept in sidecar files next to the .testcase file
+        // (looked up first: a lazily loaded test case reads the .testcase file to find them)
+        File[] sidecars = { testCase.getInputFile(), testCase.getExpectedOutputFile() };
+        File testCasesFolder = findFolderCaseInsensitive(new File(saveFolder), "test-cases");
+        File testCaseFile = testCasesFolder != null ? new File(testCasesFolder, testCase.getFilename()) : null;
+        if (testCaseFile != null && testCaseFile.exists())
+        {
+            testCaseFile.delete();
+        }
+        for (File sidecar : sidecars)
+        {
+            if (sidecar != null && sidecar.exists())
+            {
+                sidecar.delete();
+            }
+        }
+    }
+
     // Returns a test case by its filename, or null if not found
-    /* Additional: Uses stream filtering to find a test case matching its stored filename. */
+    /* Additional: Uses the filename index of ListOfTestCases, so suites with many entries load quickly. */
     public TestCase getTestCaseByFilename(String filename)
     {
-        return listOfTestCases.getTestCases().stream()
-                .filter(tc -> tc.getFilename().equals(filename))
-                .findFirst()
-                .orElse(null);
+        return listOfTestCases.getTestCaseByFilename(filename);
     }
 
     // Helper method to find a folder by name case-insensitively
@@ -172,8 +353,9 @@ public class Coordinator
         return null;
     }
 
-    // Loads all .testcase files from the test-cases folder
-    /* Additional: Scans saved test-case folder and loads all .testcase files into memory. */
+    // Loads the headers of all .testcase files from the test-cases folder, several files at a time
+    /* Additional: Only title and type are read here; input and expected output are read when a case is used.
+     * Test cases are added in folder listing order, whichever file finishes first. */
     private void loadTestCasesFromFolder()
     {
         if (saveFolder == null || saveFolder.isEmpty())
@@ -189,21 +371,62 @@ public class Coordinator
         }
 
         File[] files = testCasesFolder.listFiles((dir, name) -> name.endsWith(".testcase"));
-        if (files != null)
+        if (files == null || files.length == 0)
         {
+            return;
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(LOAD_THREADS, files.length));
+        try
+        {
+            List<Future<TestCase>> loads = new ArrayList<>();
             for (File file : files)
+            {
+                loads.add(pool.submit(() -> TestCase.loadHeaderFromFile(file)));
+            }
+            for (int i = 0; i < files.length; i++)
             {
                 try
                 {
-                    TestCase testCase = TestCase.loadFromFile(file);
-                    listOfTestCases.addTestCase(testCase);
+                    listOfTestCases.addTestCase(loads.get(i).get());
                 }
-                catch (IOException e)
+                catch (ExecutionException e)
                 {
-                    System.err.println("Error loading test case: " + file.getName() + " - " + e.getMessage());
+                    System.err.println("Error loading test case: " + files[i].getName() + " - " + e.getCause().getMessage());
                 }
             }
         }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            System.err.println("Loading test cases was interrupted");
+        }
+        finally
+        {
+            pool.shutdownNow();
+        }
+    }
+
+    // Loads all test cases and suites from the packed library in the save folder
+    /* Additional: Test cases are loaded header-only; their input and expected output are read on first use. */
+    private void loadPackedLibrary()
+    {
+        try
+        {
+            packedLibrary = PackedTestLibrary.open(new File(saveFolder));
+            for (TestCase testCase : packedLibrary.loadTestCases()) // From the index only
+            {
+                listOfTestCases.addTestCase(testCase);
+            }
+            for (TestSuite suite : packedLibrary.loadTestSuites())
+            {
+                listOfTestSuites.addSuite(suite);
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error loading packed test library: " + e.getMessage());
+        }
     }
 
     // Loads all .suite files from the test-suites folder
@@ -256,6 +479,13 @@ public class Coordinator
     // Loads programs from root folder, coordinates execution
     // Returns a list of TestResult objects containing execution results
     public List<TestResult> executeTestSuite(String codePath) throws IOException
+    {
+        return executeTestSuite(codePath, null);
+    }
+
+    // Method to execute a test suite on all student programs, reporting each result to listener as it finishes
+    // Additional: Meant to run on a background thread; cancelExecution() stops it from another thread.
+    public List<TestResult> executeTestSuite(String codePath, ExecutionListener listener) throws IOException
     {
         if (currentTestSuite == null)
         {
@@ -265,7 +495,23 @@ public class Coordinator
         {
             throw new IOException("Root folder not set");
         }
+        // Created before discovery, so a cancel during discovery is not lost
+        ExecutionControl control = new ExecutionControl();
+        currentControl = control;
+        try
+        {
+            return executeTestSuite(codePath, listener, control);
+        }
+        finally
+        {
+            currentControl = null;
+        }
+    }
 
+    // Runs the test suite under control (see executeTestSuite(String, ExecutionListener))
+    private List<TestResult> executeTestSuite(String codePath, ExecutionListener listener, ExecutionControl control)
+        throws IOException
+    {
         List<TestResult> results = new ArrayList<>();
         
         // Load all student programs from root folder (which directly contains student submission folders)
@@ -276,6 +522,10 @@ public class Coordinator
         }
         
         listOfPrograms.loadFromRootFolder(rootFolderFile, codePath);
+        if (control.isCancelled())
+        {
+            throw new IOException("Test suite execution was cancelled");
+        }
         
         // Check if any programs were found
         if (listOfPrograms.getPrograms().isEmpty())
@@ -301,15 +551,13 @@ public class Coordinator
         }
         
         // For each program, test with each test case
-        for (Program program : listOfPrograms.getPrograms())
-        {
-            for (TestCase testCase : testCases)
-            {
-                // Delegate execution to Program class
-                TestResult result = program.executeTestCase(testCase);
-                results.add(result);
-            }
-        }
+        // Delegated to the grading engine, which runs them in parallel but keeps student/test case order
+        // The suite decides which JVM flags its student programs are started with
+        executionSettings.setLaunchProfile(currentTestSuite.getLaunchProfile());
+        lastStartupMeasurement = null;
+        GradingEngine engine = new GradingEngine(executionSettings, control);
+        engine.setListener(listener);
+        results.addAll(engine.execute(listOfPrograms.getPrograms(), testCases));
         
         // Add entries for skipped folders (no main method found)
         List<String> skippedFolders = listOfPrograms.getSkippedFolders();
@@ -330,11 +578,36 @@ public class Coordinator
         // Store results for UI retrieval (create a copy to prevent modification)
         lastExecutionResults = new ArrayList<>(results);
         
+        // A tuned launch profile's start-up saving is measured on this machine for the report (once per archive)
+        if (executionSettings.getLaunchProfile() != LaunchProfile.STANDARD
+            && executionSettings.getRunMode() != RunMode.WARM_POOL)
+        {
+            lastStartupMeasurement = StartupMeasurement.measure(executionSettings);
+        }
+        
         return results;
     }
 
+    // Returns the start-up saving measured for the last execution's launch profile (null = standard profile or not measured)
+    public StartupMeasurement getLastStartupMeasurement()
+    {
+        return lastStartupMeasurement;
+    }
+
+    // Cancels the test suite execution in progress (does nothing if none is running)
+    // Additional: Running student programs are killed; executeTestSuite then fails with a "cancelled" IOException.
+    public void cancelExecution()
+    {
+        ExecutionControl control = currentControl;
+        if (control != null)
+        {
+            control.cancel();
+        }
+    }
+
     // Store last execution results for UI retrieval
     private List<TestResult> lastExecutionResults = new ArrayList<>();
+    private StartupMeasurement lastStartupMeasurement = null; // Launch profile saving of the last execution
     
     public List<TestResult> getLastExecutionResults()
     {
@@ -0,0 +1,45 @@
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Lets a running test suite be cancelled from another thread (e.g. the UI's Cancel button).
+* Every student process started during the run is registered here while it runs,
+* so cancelling can kill the in-flight processes instead of waiting for them.*/
+public class ExecutionControl
+{
+    private volatile boolean cancelled; // true once cancel() was called
+    private Set<Process> runningProcesses; // Student (or worker) processes currently running
+
+    public ExecutionControl()
+    {
+        this.runningProcesses = ConcurrentHashMap.newKeySet();
+    }
+
+    // Registers a started process; it is killed at once if the run was already cancelled
+    public void register(Process process)
+    {
+        runningProcesses.add(process);
+        if (cancelled)
+        {
+            ProcessWatchdog.destroyTree(process);
+        }
+    }
+
+    // Forgets a process once it has finished
+    public void unregister(Process process)
+    {
+        runningProcesses.remove(process);
+    }
+
+    // Cancels the run and kills every registered process (with its children)
+    public void cancel()
+    {
+        cancelled = true;
+        for (Process process : runningProcesses)
+        {
+            ProcessWatchdog.destroyTree(process);
+        }
+    }
+
+    // Returns true once the run has been cancelled
+    public boolean isCancelled() { return cancelled; }
+}
@@ -0,0 +1,8 @@
+// ExecutionListener is notified as each test result of a running suite becomes available
+// Additional: Called from worker threads - UI code must hand the update over to the JavaFX thread.
+public interface ExecutionListener
+{
+    // Called once per result, in completion order (not report order)
+    // completed counts results so far (including this one) out of total
+    void resultReady(TestResult result, int completed, int total);
+}
@@ -0,0 +1,186 @@
+import java.io.File;
+
+// ExecutionSettings holds the options used when a test suite is executed
+// Additional: Kept separate from Coordinator so the UI and the grading engine share one set of values.
+public class ExecutionSettings
+{
+    public static final long DEFAULT_CASE_TIMEOUT_MILLIS = 10000; // Generous for student programs, stops infinite loops
+    public static final long DEFAULT_OUTPUT_LIMIT_BYTES = 1024 * 1024; // Far more than any expected output
+    private static final File TMPFS_FOLDER = new File("/dev/shm"); // RAM-backed folder on Linux
+
+    private int workerCount; // Number of test cases that may run at the same time
+    private int compileWorkerCount; // Number of submissions that may compile at the same time
+    private RunMode runMode; // How student programs are started for each test case
+    private LaunchProfile launchProfile; // JVM flags forked student programs are started with
+    private long caseTimeoutMillis; // Wall-clock limit for one test case run (0 = no limit)
+    private long suiteTimeBudgetMillis; // Wall-clock limit for the whole suite execution (0 = no limit)
+    private long outputLimitBytes; // Most output kept in memory for one test case run
+    private ResourceLimits resourceLimits; // Heap, stack and CPU time limits of each forked run
+    private File cacheFolder; // Folder for persistent caches (null = no caching)
+    private boolean compileCacheEnabled; // Reuse compiled classes of unchanged submissions
+    private boolean resultReuseEnabled; // Reuse stored results of unchanged (submission, test case) pairs
+    private File scratchFolder; // Folder for each run's compiled classes (null = system temp folder)
+    private boolean scratchOnTmpfs; // Prefer tmpfs for the scratch folder when the system has one
+
+    // Constructor: starts with one worker per available processor
+    // Additional: A grading box is usually idle otherwise, so every core is used by default.
+    public ExecutionSettings()
+    {
+        this.workerCount = Runtime.getRuntime().availableProcessors();
+        this.compileWorkerCount = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        this.runMode = RunMode.FORK_PER_CASE;
+        this.launchProfile = LaunchProfile.STANDARD;
+        this.caseTimeoutMillis = DEFAULT_CASE_TIMEOUT_MILLIS;
+        this.suiteTimeBudgetMillis = 0;
+        this.outputLimitBytes = DEFAULT_OUTPUT_LIMIT_BYTES;
+        this.resourceLimits = new ResourceLimits();
+        this.cacheFolder = null;
+        this.compileCacheEnabled = true;
+        this.resultReuseEnabled = true;
+        this.scratchFolder = null;
+        this.scratchOnTmpfs = false;
+    }
+
+    // Returns how many test cases may run at the same time
+    public int getWorkerCount() { return workerCount; }
+
+    // Sets how many test cases may run at the same time
+    // Additional: Values below 1 are treated as 1 (sequential execution).
+    public void setWorkerCount(int workerCount)
+    {
+        this.workerCount = Math.max(1, workerCount);
+    }
+
+    // Returns how many submissions may compile at the same time
+    public int getCompileWorkerCount() { return compileWorkerCount; }
+
+    // Sets how many submissions may compile at the same time
+    // Additional: Compiling runs alongside the test case workers, so this and the worker count add up.
+    public void setCompileWorkerCount(int compileWorkerCount)
+    {
+        this.compileWorkerCount = Math.max(1, compileWorkerCount);
+    }
+
+    // Returns how many compiled submissions may wait for (or be in) their test case runs: twice the worker count
+    // Additional: Keeps a fast compile stage from compiling the whole class before anything runs.
+    public int getCompileAheadLimit()
+    {
+        return 2 * workerCount;
+    }
+
+    // Returns how student programs are started for each test case
+    public RunMode getRunMode() { return runMode; }
+
+    // Sets how student programs are started (a new JVM per test case, or the warm runner pool)
+    public void setRunMode(RunMode runMode)
+    {
+        this.runMode = runMode != null ? runMode : RunMode.FORK_PER_CASE;
+    }
+
+    // Returns the JVM flags forked student programs are started with
+    public LaunchProfile getLaunchProfile() { return launchProfile; }
+
+    // Sets the JVM flags forked student programs are started with (null = STANDARD)
+    // Additional: Coordinator sets this from the executed test suite (see TestSuite.getLaunchProfile()).
+    public void setLaunchProfile(LaunchProfile launchProfile)
+    {
+        this.launchProfile = launchProfile != null ? launchProfile : LaunchProfile.STANDARD;
+    }
+
+    // Returns the wall-clock limit for one test case run in milliseconds (0 = no limit)
+    public long getCaseTimeoutMillis() { return caseTimeoutMillis; }
+
+    // Sets the wall-clock limit for one test case run in milliseconds (0 or less = no limit)
+    public void setCaseTimeoutMillis(long caseTimeoutMillis)
+    {
+        this.caseTimeoutMillis = Math.max(0, caseTimeoutMillis);
+    }
+
+    // Returns the wall-clock limit for the whole suite execution in milliseconds (0 = no limit)
+    public long getSuiteTimeBudgetMillis() { return suiteTimeBudgetMillis; }
+
+    // Sets the wall-clock limit for the whole suite execution in milliseconds (0 or less = no limit)
+    // Additional: Test cases that would start after the budget is used up are reported as TIMEOUT.
+    public void setSuiteTimeBudgetMillis(long suiteTimeBudgetMillis)
+    {
+        this.suiteTimeBudgetMillis = Math.max(0, suiteTimeBudgetMillis);
+    }
+
+    // Returns the most output (in bytes) kept in memory for one test case run
+    public long getOutputLimitBytes() { return outputLimitBytes; }
+
+    // Sets the most output (in bytes) kept in memory for one test case run
+    // Additional: Runs that print more are reported as OUTPUT LIMIT EXCEEDED with a head/tail excerpt.
+    public void setOutputLimitBytes(long outputLimitBytes)
+    {
+        this.outputLimitBytes = Math.max(1024, outputLimitBytes);
+    }
+
+    // Returns the resource limits of each forked run (changed in place through its setters)
+    // Additional: Applies to FORK_PER_CASE runs and BATCHED worker JVMs; warm pool workers are shared by many students.
+    public ResourceLimits getResourceLimits() { return resourceLimits; }
+
+    // Returns the folder used for persistent caches, or null if caching is off
+    public File getCacheFolder() { return cacheFolder; }
+
+    // Sets the folder used for persistent caches (null turns caching off)
+    // Additional: Coordinator points this at a hidden folder inside the save folder.
+    public void setCacheFolder(File cacheFolder)
+    {
+        this.cacheFolder = cacheFolder;
+    }
+
+    // Turns reuse of compiled classes of unchanged submissions on or off
+    public void setCompileCacheEnabled(boolean compileCacheEnabled)
+    {
+        this.compileCacheEnabled = compileCacheEnabled;
+    }
+
+    // Returns the compile cache folder, or null if the compile cache is not in use
+    public File getCompileCacheFolder()
+    {
+        return compileCacheEnabled && cacheFolder != null ? new File(cacheFolder, "compile") : null;
+    }
+
+    // Returns true if stored results of unchanged (submission, test case) pairs are reused
+    public boolean isResultReuseEnabled() { return resultReuseEnabled; }
+
+    // Turns reuse of stored results on or off (off = every pair is run again)
+    public void setResultReuseEnabled(boolean resultReuseEnabled)
+    {
+        this.resultReuseEnabled = resultReuseEnabled;
+    }
+
+    // Returns the result store folder, or null if stored results are not in use
+    public File getResultStoreFolder()
+    {
+        return resultReuseEnabled && cacheFolder != null ? new File(cacheFolder, "results") : null;
+    }
+
+    // Sets the folder for each run's compiled classes (null = system temp folder)
+    // Additional: Every run gets its own subfolder there, deleted when the run ends (see ScratchSpace).
+    public void setScratchFolder(File scratchFolder)
+    {
+        this.scratchFolder = scratchFolder;
+    }
+
+    // Returns true if tmpfs is preferred for the scratch folder
+    public boolean isScratchOnTmpfs() { return scratchOnTmpfs; }
+
+    // Turns the use of tmpfs (/dev/shm) for compiled classes on or off
+    // Additional: Ignored where there is no writable /dev/shm; the scratch folder is used then.
+    public void setScratchOnTmpfs(boolean scratchOnTmpfs)
+    {
+        this.scratchOnTmpfs = scratchOnTmpfs;
+    }
+
+    // Returns the folder each run's scratch folder is created in
+    public File getScratchBaseFolder()
+    {
+        if (scratchOnTmpfs && TMPFS_FOLDER.isDirectory() && TMPFS_FOLDER.canWrite())
+        {
+            return TMPFS_FOLDER;
+        }
+        return scratchFolder != null ? scratchFolder : new File(System.getProperty("java.io.tmpdir"));
+    }
+}
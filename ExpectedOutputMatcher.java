@@ -0,0 +1,170 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/* Compares a program's output with an expected output stream while the output is produced,
+* so neither side has to be held in memory (used for expected outputs stored in a file).
+* The result is the same as comparing both texts with trim() and equals(), with "\r\n" and "\r"
+* on either side read as "\n" (the normalization OutputCapture.toText applies to program output).
+* Bytes are compared as they are, so both sides must use the same character encoding.*/
+public class ExpectedOutputMatcher extends OutputStream
+{
+    private InputStream expected; // Expected output, read as far as the program output got
+    private int peekedExpected = -2; // Expected byte read ahead while skipping leading blanks (-2 = none)
+    private boolean expectedAfterCR; // The last expected byte was '\r' (a following '\n' belongs to it)
+    private boolean actualAfterCR; // Same for the program output
+    private boolean started; // A non-blank output byte was seen (leading blanks are skipped on both sides)
+    private boolean blanksOnly; // Both sides differ in a blank - only trailing blanks may follow on either side
+    private boolean expectedEnded; // Everything of the expected output has been matched
+    private boolean mismatch; // The outputs are known to differ
+    private IOException readError; // Reading the expected output failed
+
+    // Constructor: takes ownership of the expected output stream (closed by close())
+    public ExpectedOutputMatcher(InputStream expected)
+    {
+        this.expected = new BufferedInputStream(expected);
+    }
+
+    @Override
+    public synchronized void write(int b)
+    {
+        b &= 0xFF;
+        if (b == '\r')
+        {
+            actualAfterCR = true;
+            accept('\n');
+            return;
+        }
+        boolean lineFeedOfCRLF = b == '\n' && actualAfterCR;
+        actualAfterCR = false;
+        if (!lineFeedOfCRLF)
+        {
+            accept(b);
+        }
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int offset, int length)
+    {
+        for (int i = offset; i < offset + length && !mismatch; i++)
+        {
+            write(data[i]);
+        }
+    }
+
+    // Returns true if the whole output matched the expected output (call once the program has finished)
+    public synchronized boolean matches() throws IOException
+    {
+        if (!mismatch && !expectedEnded)
+        {
+            // The rest of the expected output may only be trailing blanks
+            int e;
+            while ((e = nextExpected()) != -1)
+            {
+                if (!isBlank(e))
+                {
+                    mismatch = true;
+                    break;
+                }
+            }
+        }
+        if (readError != null)
+        {
+            throw readError;
+        }
+        return !mismatch;
+    }
+
+    // Closes the expected output stream (a close error is ignored - it was only read)
+    @Override
+    public void close()
+    {
+        try
+        {
+            expected.close();
+        }
+        catch (IOException ignored) { }
+    }
+
+    // Compares one (normalized) byte of program output with the expected output
+    private void accept(int b)
+    {
+        if (mismatch)
+        {
+            return;
+        }
+        boolean blank = isBlank(b);
+        if (!started)
+        {
+            if (blank)
+            {
+                return; // Leading blanks of the output
+            }
+            started = true;
+            skipLeadingExpectedBlanks();
+        }
+        if (blanksOnly || expectedEnded)
+        {
+            mismatch = !blank;
+            return;
+        }
+        int e = nextExpected();
+        if (e == -1)
+        {
+            expectedEnded = true;
+            mismatch = !blank;
+        }
+        else if (e != b)
+        {
+            // Two different blanks only match if nothing but blanks follows on both sides
+            blanksOnly = blank && isBlank(e);
+            mismatch = !blanksOnly;
+        }
+    }
+
+    // Skips the blanks at the start of the expected output
+    private void skipLeadingExpectedBlanks()
+    {
+        int e;
+        do
+        {
+            e = nextExpected();
+        }
+        while (e != -1 && isBlank(e));
+        peekedExpected = e;
+    }
+
+    // Returns the next expected byte with line endings normalized, or -1 at the end
+    private int nextExpected()
+    {
+        if (peekedExpected != -2)
+        {
+            int e = peekedExpected;
+            peekedExpected = -2;
+            return e;
+        }
+        try
+        {
+            int e = expected.read();
+            if (e == '\n' && expectedAfterCR)
+            {
+                e = expected.read(); // "\r\n" already returned as "\n"
+            }
+            expectedAfterCR = e == '\r';
+            return expectedAfterCR ? '\n' : e;
+        }
+        catch (IOException ex)
+        {
+            readError = ex;
+            mismatch = true;
+            return -1;
+        }
+    }
+
+    // Blanks are the characters trim() removes (everything up to and including ' ')
+    private static boolean isBlank(int b)
+    {
+        return b <= ' ';
+    }
+}
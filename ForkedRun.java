@@ -0,0 +1,180 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* One run of a student program in its own 'java' process, supervised without a grader worker waiting on it.
+* The process reads its input from a file in the scratch folder, so no thread has to feed its stdin.
+* Its output (stdout and stderr) is drained from the pipe by a collector thread into a bounded OutputCapture
+* (and compared as a stream), and the process is killed as soon as it writes more than could be kept or
+* matched; the program then blocks on the full pipe, so no more than one pipe buffer is ever written
+* past that point. The time limit is enforced by the ProcessWatchdog timer, and a broken resource limit
+* (see ResourceLimits) is recognised from the exit. The grader's workers only start runs, which lets
+* the parallel grader keep many small test cases running at once.*/
+public class ForkedRun
+{
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final int READ_BUFFER_BYTES = 8192; // Bytes read from the output pipe at a time
+
+    // Drains and collects running programs, one thread per run in flight (so a run never waits for another
+    // one to be drained); never keeps the application alive
+    private static final ExecutorService COLLECTORS = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "run-collector-" + THREAD_COUNTER.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Process process; // The running program
+    private ProcessWatchdog watchdog; // Time limit
+    private File inputFile; // Input written for this run (null if the test case's own input file is used)
+    private ResourceLimits limits; // Limits the command was started with
+    private CompletableFuture<RunOutcome> outcome; // Completed once the output has been collected
+
+    // Constructor: use start() instead
+    private ForkedRun()
+    {
+    }
+
+    // Starts command (already wrapped by limits, see ResourceLimits.applyTo()) with the given input,
+    // keeping at most outputLimitBytes of its output
+    // Returns a run whose outcome completes once the process has exited and its output was collected
+    // Additional: If expectedOutputFile is set, the output is also compared with it (see ExpectedOutputMatcher).
+    // The process is killed after timeoutMillis (0 = no limit) or once it writes much more than can be kept:
+    // past max(outputLimitBytes, 2 * expected output size), since a streamed comparison may match more than
+    // is kept, and "\r\n" line ends may double the expected size.
+    public static ForkedRun start(List<String> command, ResourceLimits limits, RunInput input, File expectedOutputFile,
+                                  File scratchFolder, long timeoutMillis, long outputLimitBytes, ExecutionControl control)
+        throws IOException
+    {
+        ForkedRun run = new ForkedRun();
+        run.limits = limits;
+        try
+        {
+            run.inputFile = input.getFile();
+            if (run.inputFile == null)
+            {
+                run.inputFile = Files.createTempFile(scratchFolder.toPath(), "run-", ".input").toFile();
+                Files.write(run.inputFile.toPath(), input.getTextBytes());
+            }
+
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.redirectInput(run.inputFile); // The program sees end of input after the file
+            pb.redirectErrorStream(true); // Merge stdout & stderr
+            run.process = pb.start();
+        }
+        catch (IOException e)
+        {
+            run.deleteFiles(input);
+            throw e;
+        }
+        control.register(run.process); // Cancelling the run kills it like the watchdog would
+
+        // Kill the process tree if it runs too long
+        run.watchdog = ProcessWatchdog.start(run.process, timeoutMillis);
+
+        long expectedBytes = expectedOutputFile != null ? expectedOutputFile.length() : 0;
+        long stopBytes = Math.max(outputLimitBytes, 2 * expectedBytes);
+        run.outcome = CompletableFuture.supplyAsync(
+            () -> run.collect(expectedOutputFile, outputLimitBytes, stopBytes, control, input), COLLECTORS);
+        return run;
+    }
+
+    // Returns the outcome, completed once the process has exited and its output was collected
+    public CompletableFuture<RunOutcome> getOutcome() { return outcome; }
+
+    // Kills the process (and everything it started); the outcome then completes as usual
+    public void kill()
+    {
+        ProcessWatchdog.destroyTree(process);
+    }
+
+    // Reads (and compares) the output of the process until it has exited, then deletes the run's files
+    // Additional: The process is killed once it wrote more than stopBytes; it is also killed if its output
+    // can't be read or compared, so no program is left running without a reader.
+    private RunOutcome collect(File expectedOutputFile, long outputLimitBytes, long stopBytes, ExecutionControl control,
+                               RunInput input)
+    {
+        ExpectedOutputMatcher matcher = null;
+        try (InputStream processOutput = process.getInputStream())
+        {
+            // Read output of the process (bounded: a runaway program can't fill the heap)
+            OutputCapture output = new OutputCapture(outputLimitBytes);
+            if (expectedOutputFile != null)
+            {
+                matcher = new ExpectedOutputMatcher(new FileInputStream(expectedOutputFile));
+                output.setMatcher(matcher);
+            }
+            boolean outputLimitHit = readOutput(processOutput, output, stopBytes);
+            process.waitFor();
+            boolean timedOut = watchdog.cancel();
+
+            if (timedOut)
+            {
+                // Killed for running too long - keep whatever it printed before that
+                return new RunOutcome(output.toText(), null, true, output.isLimitExceeded());
+            }
+
+            // Return exit code for runtime error detection, and which resource limit it broke (if any)
+            Boolean matched = matcher != null ? matcher.matches() : null;
+            String text = output.toText();
+            return new RunOutcome(text, process.exitValue(), false, output.isLimitExceeded() || outputLimitHit,
+                matched, limits.getBreachStatus(process.exitValue(), text));
+        }
+        catch (IOException e)
+        {
+            kill();
+            return new RunOutcome("ERROR: " + e.getMessage(), null);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            kill();
+            return new RunOutcome("ERROR: Collecting the output was interrupted", null);
+        }
+        finally
+        {
+            watchdog.cancel();
+            control.unregister(process);
+            if (matcher != null)
+            {
+                matcher.close();
+            }
+            deleteFiles(input);
+        }
+    }
+
+    // Reads the process output into output until the pipe is closed
+    // Returns true if the process was killed for writing more than stopBytes
+    private boolean readOutput(InputStream processOutput, OutputCapture output, long stopBytes) throws IOException
+    {
+        byte[] buffer = new byte[READ_BUFFER_BYTES];
+        long totalBytes = 0;
+        int count;
+        while ((count = processOutput.read(buffer)) != -1)
+        {
+            output.write(buffer, 0, count);
+            totalBytes += count;
+            if (totalBytes > stopBytes)
+            {
+                kill(); // Nothing more is read, so the program can't write more than the pipe holds
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Deletes the input file written for this run (never the test case's own input file)
+    private void deleteFiles(RunInput input)
+    {
+        if (inputFile != null && inputFile != input.getFile())
+        {
+            inputFile.delete();
+        }
+    }
+}
@@ -0,0 +1,468 @@
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Runs every test case against every student program as a two-stage pipeline.
+* Stage one compiles programs (in student order) on its own compile threads; stage two runs the
+* test cases of programs that are already compiled on the worker threads. The two stages overlap,
+* and compiling may only get a bounded number of programs ahead of running (see ExecutionSettings).
+* Each program is compiled once. Results are returned in the same
+* student/test case order as the input lists, no matter which run finishes first.
+* A listener can follow the results as they finish, and cancel() stops a run from another thread.
+* Classes compiled outside the compile cache go to a scratch space of this run, deleted when it ends.
+* A failed compile is handled once per student: their test cases get COMPILE ERROR results straight
+* away (sharing the compiler messages) instead of being queued one by one.
+* In FORK_PER_CASE mode a worker thread only starts a run: the running program holds a run slot
+* (the worker count limits the runs in flight) and a collector thread draining its output, not a worker
+* thread, and its result is completed when the process exits (see ForkedRun). A few worker threads can
+* thus keep many small test cases running.
+* In BATCHED mode one task runs all test cases of a program in sequence, in one worker JVM per program.*/
+public class GradingEngine
+{
+    private ExecutionSettings settings; // Worker count and other execution options
+    private ResultStore resultStore; // Stored results of earlier runs (null = always run everything)
+    private ExecutionControl control; // Cancels the run and kills its running processes
+    private ExecutionListener listener; // Told about each finished result (null = nobody listens)
+    private AtomicInteger completedCount; // Results finished so far in the current run
+    private int totalCount; // Results expected in the current run
+    private Map<TestCase, String> expectedPreviews; // Expected output shown in results, read once per test case
+
+    // Constructor: stores the settings used for every execution
+    public GradingEngine(ExecutionSettings settings)
+    {
+        this(settings, new ExecutionControl());
+    }
+
+    // Constructor: runs under an existing control, so a cancel made before execute() (e.g. while the
+    // submissions are still being discovered) stops the run as soon as it starts
+    public GradingEngine(ExecutionSettings settings, ExecutionControl control)
+    {
+        this.settings = settings;
+        File resultStoreFolder = settings.getResultStoreFolder();
+        this.resultStore = resultStoreFolder != null ? new ResultStore(resultStoreFolder) : null;
+        this.control = control;
+        this.completedCount = new AtomicInteger();
+        this.expectedPreviews = new ConcurrentHashMap<>();
+    }
+
+    // Sets the listener told about each result as soon as it is available
+    // Additional: The listener is called from worker threads.
+    public void setListener(ExecutionListener listener)
+    {
+        this.listener = listener;
+    }
+
+    // Cancels the run: running student processes are killed and test cases not yet started are skipped
+    // Additional: Safe to call from any thread; execute() then throws an IOException instead of returning results.
+    public void cancel()
+    {
+        control.cancel();
+    }
+
+    // Returns true once cancel() was called
+    public boolean isCancelled()
+    {
+        return control.isCancelled();
+    }
+
+    // Execute all test cases against all programs
+    // Returns results ordered by program, then by test case (same order as the input lists)
+    public List<TestResult> execute(List<Program> programs, List<TestCase> testCases) throws IOException
+    {
+        ScratchSpace scratchSpace = ScratchSpace.create(settings.getScratchBaseFolder());
+        for (Program program : programs)
+        {
+            program.setScratchSpace(scratchSpace);
+        }
+        ExecutorService compilePool = Executors.newFixedThreadPool(settings.getCompileWorkerCount(),
+            createThreadFactory("grading-compiler-"));
+        ExecutorService pool = Executors.newFixedThreadPool(getWorkerThreadCount(), createThreadFactory("grading-worker-"));
+        Semaphore runSlots = new Semaphore(settings.getWorkerCount(), true); // Runs in flight, taken in queue order
+        Semaphore compileAhead = new Semaphore(settings.getCompileAheadLimit(), true); // Fair: students compile in order
+        if (settings.getRunMode() == RunMode.WARM_POOL)
+        {
+            WarmRunnerPool.getShared().setMaxIdleWorkers(settings.getWorkerCount()); // One warm JVM per worker
+        }
+        else if (settings.getLaunchProfile() == LaunchProfile.FAST_STARTUP)
+        {
+            StartupArchive.getArchive(settings); // Created (once) before the first run instead of during it
+        }
+        try
+        {
+            // One future per (program, test case) pair, kept in report order
+            List<CompletableFuture<TestResult>> futures = new ArrayList<>();
+            long deadline = getSuiteDeadline();
+            completedCount.set(0);
+            totalCount = programs.size() * testCases.size();
+            for (Program program : programs)
+            {
+                // Stage one: compile, then hand the test cases over to the workers (stage two)
+                List<CompletableFuture<TestResult>> programFutures = new ArrayList<>();
+                for (int i = 0; i < testCases.size(); i++)
+                {
+                    programFutures.add(new CompletableFuture<>());
+                }
+                futures.addAll(programFutures);
+                compilePool.execute(() -> compileThenQueueTestCases(program, testCases, programFutures, pool, runSlots,
+                    compileAhead, deadline));
+            }
+
+            List<TestResult> results = new ArrayList<>();
+            for (CompletableFuture<TestResult> future : futures)
+            {
+                results.add(future.get());
+            }
+            saveResultStore(); // Keeps results finished before a cancel, too
+            if (control.isCancelled())
+            {
+                throw new IOException("Test suite execution was cancelled");
+            }
+            return results;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new IOException("Test suite execution was interrupted");
+        }
+        catch (ExecutionException | CompletionException e)
+        {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            throw new IOException("Test suite execution failed: " + cause.getMessage(), cause);
+        }
+        finally
+        {
+            compilePool.shutdownNow(); // Stop any work left over after a failure
+            pool.shutdownNow();
+            awaitTermination(compilePool); // No compile or run may still use the scratch space when it is deleted
+            awaitTermination(pool);
+            awaitRunsInFlight(runSlots);
+            for (Program program : programs)
+            {
+                program.releaseScratchSpace();
+            }
+            scratchSpace.close();
+        }
+    }
+
+    // Returns the number of worker threads: one per run slot when runs block their thread (WARM_POOL, BATCHED),
+    // otherwise at most one per processor, as they only start runs
+    private int getWorkerThreadCount()
+    {
+        if (settings.getRunMode() == RunMode.WARM_POOL || settings.getRunMode() == RunMode.BATCHED)
+        {
+            return settings.getWorkerCount();
+        }
+        return Math.min(settings.getWorkerCount(), Runtime.getRuntime().availableProcessors());
+    }
+
+    // Waits briefly for the pool's threads to stop (their processes are killed by then)
+    private void awaitTermination(ExecutorService pool)
+    {
+        try
+        {
+            if (!pool.awaitTermination(10, TimeUnit.SECONDS))
+            {
+                System.err.println("Grading workers still running; their scratch files may not be deleted");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Waits briefly for started runs to finish (all run slots given back), e.g. after a failed execution
+    private void awaitRunsInFlight(Semaphore runSlots)
+    {
+        try
+        {
+            if (!runSlots.tryAcquire(settings.getWorkerCount(), 10, TimeUnit.SECONDS))
+            {
+                System.err.println("Test case runs still in flight; their scratch files may not be deleted");
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Compile one program, then queue its test cases on the worker pool in test case order
+    // Additional: Waits for a compile-ahead permit first; it is given back once all queued test cases finished.
+    // Programs are queued in student order and the workers take test cases first come, first served,
+    // so earlier students finish first and the suite budget is spent in report order.
+    private void compileThenQueueTestCases(Program program, List<TestCase> testCases,
+                                           List<CompletableFuture<TestResult>> programFutures, ExecutorService pool,
+                                           Semaphore runSlots, Semaphore compileAhead, long deadline)
+    {
+        try
+        {
+            // Reuse stored results first; only programs with something left to run are compiled
+            boolean needsRun = false;
+            for (int i = 0; i < testCases.size(); i++)
+            {
+                TestResult stored = resultStore != null ? resultStore.lookup(program, testCases.get(i)) : null;
+                if (stored != null)
+                {
+                    programFutures.get(i).complete(stored);
+                    notifyListener(stored);
+                }
+                else
+                {
+                    needsRun = true;
+                }
+            }
+            if (!needsRun)
+            {
+                return;
+            }
+
+            compileAhead.acquire();
+            List<CompletableFuture<TestResult>> queued = new ArrayList<>();
+            try
+            {
+                if (!control.isCancelled())
+                {
+                    program.ensureCompiled(settings);
+                }
+                boolean compileFailed = !control.isCancelled() && program.hasFailedToCompile();
+                List<TestCase> batchCases = new ArrayList<>(); // BATCHED mode: run by one task, in one worker JVM
+                List<CompletableFuture<TestResult>> batchFutures = new ArrayList<>();
+                for (int i = 0; i < testCases.size(); i++)
+                {
+                    TestCase testCase = testCases.get(i);
+                    CompletableFuture<TestResult> future = programFutures.get(i);
+                    if (future.isDone())
+                    {
+                        continue; // Reused from the result store
+                    }
+                    if (compileFailed)
+                    {
+                        // Nothing to run: complete the result here instead of queuing a task for it
+                        TestResult result = new TestResult(program.getName(), testCase.getTitle(), "COMPILE ERROR", "",
+                            getExpectedPreview(testCase), program.getCompileDiagnostics());
+                        if (resultStore != null)
+                        {
+                            resultStore.record(program, testCase, result);
+                        }
+                        future.complete(result);
+                        notifyListener(result);
+                        continue;
+                    }
+                    queued.add(future);
+                    if (settings.getRunMode() == RunMode.BATCHED)
+                    {
+                        batchCases.add(testCase);
+                        batchFutures.add(future);
+                        continue;
+                    }
+                    pool.execute(() -> {
+                        try
+                        {
+                            runSlots.acquire();
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                            future.completeExceptionally(new IllegalStateException("Test suite execution was interrupted"));
+                            return;
+                        }
+                        CompletableFuture<TestResult> run;
+                        try
+                        {
+                            run = startWithinBudget(program, testCase, deadline);
+                        }
+                        catch (RuntimeException e)
+                        {
+                            run = CompletableFuture.failedFuture(e);
+                        }
+                        run.whenComplete((result, error) -> {
+                            runSlots.release();
+                            if (error != null)
+                            {
+                                future.completeExceptionally(error);
+                            }
+                            else
+                            {
+                                completeRun(program, testCase, result, future);
+                            }
+                        });
+                    });
+                }
+                if (!batchCases.isEmpty())
+                {
+                    pool.execute(() -> runBatch(program, batchCases, batchFutures, runSlots, deadline));
+                }
+            }
+            finally
+            {
+                CompletableFuture.allOf(queued.toArray(new CompletableFuture<?>[0]))
+                    .whenComplete((done, error) -> compileAhead.release());
+            }
+        }
+        catch (InterruptedException e)
+        {   // The run is being torn down - fail whatever has not been queued
+            Thread.currentThread().interrupt();
+            failUnfinished(programFutures, new IllegalStateException("Test suite execution was interrupted"));
+        }
+        catch (RuntimeException e)
+        {   // Compilation crashed or the pool was shut down - fail whatever has not been queued
+            failUnfinished(programFutures, e);
+        }
+    }
+
+    // Runs the test cases of one program one after another in its own worker JVM (BATCHED mode)
+    // Additional: The batch holds one run slot throughout, so the worker count still limits the JVMs running at once.
+    private void runBatch(Program program, List<TestCase> testCases, List<CompletableFuture<TestResult>> futures,
+                          Semaphore runSlots, long deadline)
+    {
+        try
+        {
+            runSlots.acquire();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            failUnfinished(futures, new IllegalStateException("Test suite execution was interrupted"));
+            return;
+        }
+        program.openBatch(testCases.size());
+        try
+        {
+            for (int i = 0; i < testCases.size(); i++)
+            {
+                TestResult result = startWithinBudget(program, testCases.get(i), deadline).join();
+                completeRun(program, testCases.get(i), result, futures.get(i));
+            }
+        }
+        catch (RuntimeException e)
+        {
+            failUnfinished(futures, e);
+        }
+        finally
+        {
+            program.closeBatch();
+            runSlots.release();
+        }
+    }
+
+    // Stores and reports the result of a finished run, then completes its future
+    private void completeRun(Program program, TestCase testCase, TestResult result, CompletableFuture<TestResult> future)
+    {
+        try
+        {
+            if (control.isCancelled())
+            {
+                future.complete(result); // Killed or never started - neither stored nor reported
+                return;
+            }
+            if (resultStore != null)
+            {
+                resultStore.record(program, testCase, result);
+            }
+            future.complete(result);
+            notifyListener(result);
+        }
+        catch (RuntimeException e)
+        {
+            future.completeExceptionally(e);
+        }
+    }
+
+    // Completes every future that has no result yet with the given error
+    private void failUnfinished(List<CompletableFuture<TestResult>> futures, Throwable error)
+    {
+        for (CompletableFuture<TestResult> future : futures)
+        {
+            future.completeExceptionally(error);
+        }
+    }
+
+    // Tells the listener (if any) that one more result is available
+    private void notifyListener(TestResult result)
+    {
+        int completed = completedCount.incrementAndGet();
+        if (listener != null && !control.isCancelled())
+        {
+            listener.resultReady(result, completed, totalCount);
+        }
+    }
+
+    // Writes newly recorded results to disk (a failure here never fails the run itself)
+    private void saveResultStore()
+    {
+        if (resultStore == null)
+        {
+            return;
+        }
+        try
+        {
+            resultStore.save();
+        }
+        catch (IOException e)
+        {
+            System.err.println("Error saving stored test results: " + e.getMessage());
+        }
+    }
+
+    // Start one test case, shortening its time limit so it never runs past the suite deadline
+    // Returns a future completed with the result once the run has finished
+    // Additional: Once the suite budget is used up, remaining test cases are reported as TIMEOUT without running.
+    // After a cancel they are not run at all.
+    private CompletableFuture<TestResult> startWithinBudget(Program program, TestCase testCase, long deadline)
+    {
+        if (control.isCancelled())
+        {
+            return CompletableFuture.completedFuture(new TestResult(program.getName(), testCase.getTitle(), "CANCELLED", "",
+                getExpectedPreview(testCase)));
+        }
+        long timeoutMillis = settings.getCaseTimeoutMillis();
+        if (deadline > 0)
+        {
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (remainingMillis <= 0)
+            {
+                return CompletableFuture.completedFuture(new TestResult(program.getName(), testCase.getTitle(), "TIMEOUT",
+                    "Suite time budget used up before this test case ran", getExpectedPreview(testCase)));
+            }
+            timeoutMillis = timeoutMillis > 0 ? Math.min(timeoutMillis, remainingMillis) : remainingMillis;
+        }
+        return program.startTestCase(testCase, settings, timeoutMillis, control);
+    }
+
+    // Returns the expected output shown in results that are not run (read once per test case and run)
+    private String getExpectedPreview(TestCase testCase)
+    {
+        return expectedPreviews.computeIfAbsent(testCase, TestCase::getExpectedOutputPreview);
+    }
+
+    // Returns the time (in System.currentTimeMillis() terms) when the suite budget runs out, or 0 for no budget
+    private long getSuiteDeadline()
+    {
+        long budget = settings.getSuiteTimeBudgetMillis();
+        return budget > 0 ? System.currentTimeMillis() + budget : 0;
+    }
+
+    // Creates daemon worker threads so an unfinished run never keeps the application alive
+    private ThreadFactory createThreadFactory(String namePrefix)
+    {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,49 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+// LaunchProfile selects the JVM flags student programs are started with (chosen per test suite)
+// Additional: Student programs are tiny and short-lived, so JVM start-up dominates each forked run.
+public enum LaunchProfile
+{
+    STANDARD, // The JVM's default flags
+    FAST_STARTUP; // Start-up oriented: class data sharing archive, C1 compiler only, Serial GC
+
+    // Returns the JVM options of this profile; archive is the class data sharing archive to use (null = JDK default)
+    // Additional: -Xshare:auto silently falls back to no sharing if the archive does not fit the JVM.
+    public List<String> getJvmOptions(File archive)
+    {
+        List<String> options = new ArrayList<>();
+        if (this == FAST_STARTUP)
+        {
+            options.add("-XX:TieredStopAtLevel=1"); // The C1 compiler warms up fastest; C2 never pays off in a short run
+            options.add("-XX:+UseSerialGC"); // No GC worker threads to start for a small heap
+            options.add("-XX:-UsePerfData"); // No hsperfdata file to create and map
+            options.add("-Xshare:auto");
+            if (archive != null)
+            {
+                options.add("-XX:SharedArchiveFile=" + archive.getAbsolutePath());
+            }
+        }
+        return options;
+    }
+
+    // Returns the name shown to users
+    public String getDisplayName()
+    {
+        return this == FAST_STARTUP ? "Fast start-up (CDS archive, C1 only, Serial GC)" : "Standard";
+    }
+
+    // Parses a stored profile name (unknown or missing names give STANDARD)
+    public static LaunchProfile fromName(String name)
+    {
+        for (LaunchProfile profile : values())
+        {
+            if (profile.name().equals(name))
+            {
+                return profile;
+            }
+        }
+        return STANDARD;
+    }
+}
@@ -1,21 +1,38 @@
 
 import java.io.File;
-import java.io.BufferedReader;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
+/* The student programs found under a root folder (one submission folder per student).
+* Submission folders are scanned in parallel with a fork-join walk. What was found in a folder
+* is remembered together with the folder's and its .java files' modification times, so a rescan
+* of the same root only reads the sources of folders that changed since the last scan.*/
 public class ListOfPrograms
 {
+    private static final int DISCOVERY_THREADS = 16; // Submission folders scanned at the same time (I/O bound, e.g. network shares)
+    private static final int FOLDERS_PER_TASK = 16; // Folders scanned by one fork-join task without splitting it further
+    private static final int MAX_SCAN_BYTES = 1024 * 1024; // Only this much of a source file is searched for main
+    private static final int SCAN_CHUNK_BYTES = 16 * 1024; // Bytes read from a source file at a time
+
     private List<Program> programs; // Stores all detected student programs
     private List<String> skippedFolders; // Stores folder names that were skipped (no main method found)
+    private Map<String, Discovery> discoveries; // Last scan result of every search folder, by absolute path
 
     // Additional: Initializes the internal list to hold Program objects.
     public ListOfPrograms()
     {
         this.programs = new ArrayList<>();
         this.skippedFolders = new ArrayList<>();
+        this.discoveries = new ConcurrentHashMap<>();
     }
 
     // Additional: Adds a Program object to the collection.
@@ -49,55 +66,118 @@ public class ListOfPrograms
     // codePath is the subfolder within each submission (e.g., "src")
     // If codePath is empty, looks for Java files directly in submission folder
     // Additional: This supports multiple project structures by allowing nested code folders.
+    // Folders are scanned in parallel; folders unchanged since the last scan are not read again.
     public void loadFromRootFolder(File root, String codePath)
     {
         programs.clear(); // Additional: Reset list before loading to avoid duplicates.
         skippedFolders.clear(); // Reset skipped folders list
 
-        if (root.isDirectory()) // Additional: Ensure provided root is a valid directory.
+        File[] folders = root.listFiles(File::isDirectory); // Additional: Student submission folders.
+        if (folders == null || folders.length == 0) // Additional: Ensure provided root is a valid directory.
         {
-            for (File folder : root.listFiles(File::isDirectory)) // Additional: Iterate student submission folders.
+            return;
+        }
+        String nestedPath = codePath != null ? codePath.trim() : "";
+
+        ForkJoinPool pool = new ForkJoinPool(Math.min(DISCOVERY_THREADS, folders.length));
+        try
+        {
+            // Results come back in folder order, so the program list is the same as a sequential scan
+            for (FolderResult result : pool.invoke(new DiscoveryTask(folders, 0, folders.length, nestedPath)))
             {
-                File searchFolder = folder; // Additional: Default search location is the submission root.
-                
-                // If code path is specified, look in that subfolder
-                if (codePath != null && !codePath.trim().isEmpty())
+                if (result.program != null)
                 {
-                    searchFolder = new File(folder, codePath.trim()); // Additional: Navigate into nested code folder.
+                    programs.add(result.program);
                 }
-                
-                // Find Java files in the search folder
-                if (searchFolder.exists() && searchFolder.isDirectory())
+                else
                 {
-                    File[] javaFiles = searchFolder.listFiles(f -> f.getName().endsWith(".java"));
-
-                    // Additional: Only detect Java files; assumes student submits at least one .java file.
-                    if (javaFiles != null && javaFiles.length > 0)
-                    {
-                        // Search for the Java file containing public static void main
-                        File entryPointFile = findEntryPointFile(javaFiles);
-                        if (entryPointFile != null)
-                        {
-                            programs.add(new Program(folder.getName(), entryPointFile));
-                        }
-                        else
-                        {
-                            // No main method found - add to skipped folders list
-                            skippedFolders.add(folder.getName());
-                        }
-                    }
-                    else
-                    {
-                        // No Java files found in folder
-                        skippedFolders.add(folder.getName());
-                    }
+                    skippedFolders.add(result.folderName);
                 }
-                else
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    // Finds the program in one submission folder
+    // Returns the result for the folder: its program, or none if the folder is skipped
+    private FolderResult discoverFolder(File folder, String nestedPath)
+    {
+        File searchFolder = folder; // Additional: Default search location is the submission root.
+        
+        // If code path is specified, look in that subfolder
+        if (!nestedPath.isEmpty())
+        {
+            searchFolder = new File(folder, nestedPath); // Additional: Navigate into nested code folder.
+        }
+        
+        // Find Java files in the search folder (including package folders below it)
+        List<File> javaFileList = new ArrayList<>();
+        collectJavaFiles(searchFolder, javaFileList);
+        File[] javaFiles = javaFileList.toArray(new File[0]);
+        if (javaFiles.length == 0)
+        {
+            // Search folder doesn't exist, isn't a directory or has no Java files
+            return new FolderResult(folder.getName(), null);
+        }
+
+        // Reuse the last scan if neither the folder nor any of its Java files changed
+        // (adding, removing or renaming a file changes the file count or the times; editing one changes the file)
+        long folderModified = searchFolder.lastModified();
+        long newestFileModified = 0;
+        for (File javaFile : javaFiles)
+        {
+            newestFileModified = Math.max(newestFileModified, javaFile.lastModified());
+        }
+        String key = searchFolder.getAbsolutePath();
+        Discovery previous = discoveries.get(key);
+        File entryPointFile;
+        if (previous != null && previous.matches(folderModified, newestFileModified, javaFiles.length))
+        {
+            entryPointFile = previous.entryPointFile;
+        }
+        else
+        {
+            // Search for the Java file containing public static void main
+            entryPointFile = findEntryPointFile(javaFiles);
+            discoveries.put(key, new Discovery(folderModified, newestFileModified, javaFiles.length, entryPointFile));
+        }
+
+        // A new Program every time: compiled classes from an earlier run may have been removed since
+        return new FolderResult(folder.getName(), entryPointFile != null ? new Program(folder.getName(), entryPointFile) : null);
+    }
+
+    // Adds the Java files of a folder to javaFiles: its own files first (by name), then those of its subfolders
+    // Additional: Hidden folders (e.g. .git) are skipped. Files directly in the folder are preferred as entry
+    // points, so flat submissions are found as before; packaged ones (src/com/example/Main.java) are found too.
+    private static void collectJavaFiles(File folder, List<File> javaFiles)
+    {
+        File[] entries = folder.listFiles();
+        if (entries == null)
+        {
+            return;
+        }
+        Arrays.sort(entries);
+        List<File> subfolders = new ArrayList<>();
+        for (File entry : entries)
+        {
+            if (entry.isDirectory())
+            {
+                if (!entry.getName().startsWith("."))
                 {
-                    // Search folder doesn't exist or isn't a directory
-                    skippedFolders.add(folder.getName());
+                    subfolders.add(entry);
                 }
             }
+            else if (entry.getName().endsWith(".java"))
+            {
+                javaFiles.add(entry);
+            }
+        }
+        for (File subfolder : subfolders)
+        {
+            collectJavaFiles(subfolder, javaFiles);
         }
     }
 
@@ -119,34 +199,133 @@ public class ListOfPrograms
     // Helper method to check if a Java file contains public static void main
     // Reads the file and searches for the main method signature
     // Looks for the pattern: public static void main(String[] args) or main(String args[])
+    // Additional: Reads at most MAX_SCAN_BYTES in chunks and stops at the first match. Only lines containing
+    // "main(" are looked at closely, so most of a file is skipped with a single search.
     private boolean hasMainMethod(File javaFile)
     {
-        try (BufferedReader reader = new BufferedReader(new FileReader(javaFile)))
+        try (InputStream in = new FileInputStream(javaFile))
         {
-            String line;
-            while ((line = reader.readLine()) != null)
+            byte[] chunk = new byte[SCAN_CHUNK_BYTES];
+            String partialLine = ""; // End of the previous chunk, after its last line break
+            int scanned = 0;
+            int read;
+            while (scanned < MAX_SCAN_BYTES && (read = in.read(chunk)) != -1)
             {
-                line = line.trim();
-                
-                // Look for "public static void main" signature
-                // Must contain: public, static, void, and main(
-                // This handles standard formats like:
-                //   public static void main(String[] args)
-                //   public static void main(String args[])
-                //   public static void main(String... args)
-                if (line.contains("public") && 
-                    line.contains("static") && 
-                    line.contains("void") && 
-                    line.contains("main("))
+                scanned += read;
+                // The keywords are ASCII, so decoding as ISO-8859-1 (one char per byte) never splits them
+                String text = partialLine + new String(chunk, 0, read, StandardCharsets.ISO_8859_1);
+                int lastBreak = text.lastIndexOf('\n');
+                if (containsMainSignature(text, lastBreak + 1))
                 {
                     return true; // Found the main method signature
                 }
+                partialLine = text.substring(lastBreak + 1);
             }
-            return false;
+            return containsMainSignature(partialLine, partialLine.length());
         }
         catch (IOException e)
         {
             return false; // If we can't read the file, assume no main method
         }
     }
+
+    // Returns true if one of the complete lines in text[0, end) has a main method signature
+    // Must contain: public, static, void, and main(
+    // This handles standard formats like:
+    //   public static void main(String[] args)
+    //   public static void main(String args[])
+    //   public static void main(String... args)
+    private static boolean containsMainSignature(String text, int end)
+    {
+        int found = text.indexOf("main(");
+        while (found >= 0 && found < end)
+        {
+            int lineStart = text.lastIndexOf('\n', found) + 1;
+            int lineEnd = text.indexOf('\n', found);
+            String line = text.substring(lineStart, lineEnd >= 0 ? lineEnd : text.length());
+            if (line.contains("public") && line.contains("static") && line.contains("void"))
+            {
+                return true;
+            }
+            found = text.indexOf("main(", found + 1);
+        }
+        return false;
+    }
+
+    // Fork-join task scanning a range of submission folders
+    // Additional: Splits the range in halves until it is small enough, then scans it in order.
+    private class DiscoveryTask extends RecursiveTask<List<FolderResult>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private File[] folders; // All submission folders
+        private int from; // First folder of this task
+        private int to; // End of this task's range (exclusive)
+        private String nestedPath; // Code path inside every submission folder ("" = the folder itself)
+
+        DiscoveryTask(File[] folders, int from, int to, String nestedPath)
+        {
+            this.folders = folders;
+            this.from = from;
+            this.to = to;
+            this.nestedPath = nestedPath;
+        }
+
+        @Override
+        protected List<FolderResult> compute()
+        {
+            if (to - from <= FOLDERS_PER_TASK)
+            {
+                List<FolderResult> results = new ArrayList<>(to - from);
+                for (int i = from; i < to; i++)
+                {
+                    results.add(discoverFolder(folders[i], nestedPath));
+                }
+                return results;
+            }
+            int middle = (from + to) >>> 1;
+            DiscoveryTask second = new DiscoveryTask(folders, middle, to, nestedPath);
+            second.fork();
+            List<FolderResult> results = new DiscoveryTask(folders, from, middle, nestedPath).compute();
+            results.addAll(second.join());
+            return results;
+        }
+    }
+
+    // What was found in one submission folder (program is null if the folder is skipped)
+    private static class FolderResult
+    {
+        private String folderName;
+        private Program program;
+
+        FolderResult(String folderName, Program program)
+        {
+            this.folderName = folderName;
+            this.program = program;
+        }
+    }
+
+    // Remembered scan of one search folder, valid while its modification times stay the same
+    private static class Discovery
+    {
+        private long folderModified; // Modification time of the search folder
+        private long newestFileModified; // Newest modification time of its Java files
+        private int javaFileCount; // Number of Java files (catches changes the times don't show)
+        private File entryPointFile; // Java file with the main method, or null if there is none
+
+        Discovery(long folderModified, long newestFileModified, int javaFileCount, File entryPointFile)
+        {
+            this.folderModified = folderModified;
+            this.newestFileModified = newestFileModified;
+            this.javaFileCount = javaFileCount;
+            this.entryPointFile = entryPointFile;
+        }
+
+        // Returns true if the folder still looks the way it did when it was scanned
+        boolean matches(long folderModified, long newestFileModified, int javaFileCount)
+        {
+            return this.folderModified == folderModified && this.newestFileModified == newestFileModified
+                && this.javaFileCount == javaFileCount;
+        }
+    }
 }
@@ -1,48 +1,105 @@
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ListOfTestCases
 {
     private List<TestCase> testCases; // Stores all TestCase objects
+    private Map<String, TestCase> byFilename; // Index: filename -> test case (filenames are unique in the list)
+    private Map<String, TestCase> byTitle; // Index: title -> test case
 
     // Additional: Initializes internal list to keep track of all created or loaded test cases.
     public ListOfTestCases()
     {
         testCases = new ArrayList<>();
+        byFilename = new HashMap<>();
+        byTitle = new HashMap<>();
     }
 
     // Additional: Adds a test case to the list for use in building suites or running tests.
+    // A test case with the same filename is replaced, since both would be saved to the same file.
     public void addTestCase(TestCase testCase)
     {
-        testCases.add(testCase);
+        TestCase existing = byFilename.get(testCase.getFilename());
+        if (existing == testCase)
+        {
+            return; // Already in the list (e.g. saved again after an edit)
+        }
+        if (existing != null)
+        {
+            testCases.set(testCases.indexOf(existing), testCase);
+            byTitle.remove(existing.getTitle());
+        }
+        else
+        {
+            testCases.add(testCase);
+        }
+        index(testCase);
     }
 
     // Additional: Removes a specific test case from the list if no longer needed.
     public void removeTestCase(TestCase testCase)
     {
-        testCases.remove(testCase);
+        if (testCases.remove(testCase))
+        {
+            byFilename.remove(testCase.getFilename());
+            byTitle.remove(testCase.getTitle());
+        }
+    }
+
+    // Changes the title (and with it the filename) of a test case in this list, keeping the indexes in sync
+    // Additional: Another test case already using the new filename is dropped, as its file gets overwritten on save.
+    public void renameTestCase(TestCase testCase, String newTitle)
+    {
+        byFilename.remove(testCase.getFilename());
+        byTitle.remove(testCase.getTitle());
+        testCase.setTitle(newTitle);
+
+        TestCase existing = byFilename.get(testCase.getFilename());
+        if (existing != null)
+        {
+            testCases.remove(existing);
+            byTitle.remove(existing.getTitle());
+        }
+        index(testCase);
     }
 
     // Additional: Returns full list of stored test cases for UI population or processing.
+    // The list is read-only; use add/remove/rename so the indexes stay correct.
     public List<TestCase> getTestCases()
     {
-        return testCases;
+        return Collections.unmodifiableList(testCases);
     }
 
-    // Additional: Searches for a test case by its title, returning the first matching one.
-    // Uses a stream for clean, readable filtering.
+    // Additional: Searches for a test case by its title, returning the matching one (or null).
+    // Uses the title index, so the lookup does not depend on the number of test cases.
     public TestCase getTestCaseByTitle(String title)
     {
-        return testCases.stream()
-                .filter(tc -> tc.getTitle().equals(title))
-                .findFirst()
-                .orElse(null);
+        return byTitle.get(title);
+    }
+
+    // Returns the test case saved under the given filename (e.g. "Add_Numbers.testcase"), or null if not found
+    // Additional: Uses the filename index - no filename is sanitized again during the lookup.
+    public TestCase getTestCaseByFilename(String filename)
+    {
+        return byFilename.get(filename);
     }
 
     // Additional: Clears all stored test cases—useful when loading a new dataset from disk.
     public void clear()
     {
         testCases.clear();
+        byFilename.clear();
+        byTitle.clear();
+    }
+
+    // Adds a test case to both indexes
+    private void index(TestCase testCase)
+    {
+        byFilename.put(testCase.getFilename(), testCase);
+        byTitle.put(testCase.getTitle(), testCase);
     }
 }
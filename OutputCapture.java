@@ -0,0 +1,154 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+
+/* Collects the output of a student program with a hard memory limit.
+* Up to limitBytes are kept: the first half of the output and a rolling window
+* of the most recent bytes. Anything in between is counted but not stored, so a
+* program that prints in a loop can never fill the grader's heap.
+* Writes never block or fail once the limit is reached - the data is simply dropped,
+* which keeps the child's pipe drained.*/
+public class OutputCapture extends OutputStream
+{
+    private byte[] head; // First bytes of the output
+    private int headLength; // Bytes stored in head
+    private byte[] tail; // Ring buffer holding the most recent bytes after head is full
+    private long tailWritten; // Total bytes ever written to the tail ring
+    private long totalBytes; // Total bytes written, stored or not
+    private long limitBytes; // Maximum bytes kept in memory
+    private int headLimit; // Capacity of head once fully grown
+    private int tailLimit; // Capacity of the tail ring
+    private ExpectedOutputMatcher matcher; // Also sees every byte, to compare output that is not kept (null = none)
+
+    // Constructor: keeps at most limitBytes of output (split between head and tail)
+    public OutputCapture(long limitBytes)
+    {
+        this.limitBytes = Math.max(2, limitBytes);
+        int half = (int) Math.min(Integer.MAX_VALUE - 8, this.limitBytes / 2);
+        this.head = new byte[Math.min(half, 8192)]; // Grown on demand up to half
+        this.tail = new byte[0]; // Allocated only if the output outgrows head
+        this.headLimit = half;
+        this.tailLimit = (int) Math.min(Integer.MAX_VALUE - 8, this.limitBytes - half);
+    }
+
+    @Override
+    public synchronized void write(int b)
+    {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    // Passes all output (including the bytes beyond the limit) to a streamed comparison as well
+    public synchronized void setMatcher(ExpectedOutputMatcher matcher)
+    {
+        this.matcher = matcher;
+    }
+
+    @Override
+    public synchronized void write(byte[] data, int offset, int length)
+    {
+        totalBytes += length;
+        if (matcher != null)
+        {
+            matcher.write(data, offset, length);
+        }
+
+        // Fill head first
+        int toHead = Math.min(length, headLimit - headLength);
+        if (toHead > 0)
+        {
+            ensureHeadCapacity(headLength + toHead);
+            System.arraycopy(data, offset, head, headLength, toHead);
+            headLength += toHead;
+            offset += toHead;
+            length -= toHead;
+        }
+        if (length == 0 || tailLimit == 0)
+        {
+            return;
+        }
+
+        // Then keep only the most recent tailLimit bytes in the ring
+        if (tail.length < tailLimit)
+        {
+            tail = new byte[tailLimit];
+        }
+        if (length > tailLimit)
+        {
+            offset += length - tailLimit;
+            tailWritten += length - tailLimit;
+            length = tailLimit;
+        }
+        int position = (int) (tailWritten % tailLimit);
+        int firstPart = Math.min(length, tailLimit - position);
+        System.arraycopy(data, offset, tail, position, firstPart);
+        System.arraycopy(data, offset + firstPart, tail, 0, length - firstPart);
+        tailWritten += length;
+    }
+
+    // Read the stream until it ends, keeping only what fits within the limit
+    // Additional: Always reads to the end, so the writing process is never blocked on a full pipe.
+    public void readFrom(InputStream in) throws IOException
+    {
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1)
+        {
+            write(buffer, 0, read);
+        }
+    }
+
+    // Returns true if more output was produced than could be kept
+    public synchronized boolean isLimitExceeded()
+    {
+        return totalBytes > limitBytes;
+    }
+
+    // Returns the stored bytes: the full output, or head + omission marker + tail if the limit was exceeded
+    public synchronized byte[] toByteArray()
+    {
+        int tailLength = (int) Math.min(tailWritten, tailLimit);
+        byte[] marker = isLimitExceeded()
+            ? ("\n... [" + (totalBytes - headLength - tailLength) + " bytes omitted] ...\n").getBytes()
+            : new byte[0];
+
+        byte[] result = new byte[headLength + marker.length + tailLength];
+        System.arraycopy(head, 0, result, 0, headLength);
+        System.arraycopy(marker, 0, result, headLength, marker.length);
+        int start = tailWritten > tailLimit ? (int) (tailWritten % tailLimit) : 0;
+        int firstPart = Math.min(tailLength, tailLength - start);
+        System.arraycopy(tail, start, result, headLength + marker.length, firstPart);
+        System.arraycopy(tail, 0, result, headLength + marker.length + firstPart, tailLength - firstPart);
+        return result;
+    }
+
+    // Returns the stored output as text, formatted like lines read one by one and joined with "\n"
+    public String toText()
+    {
+        return toText(toByteArray());
+    }
+
+    // Converts raw program output to text the same way for every run mode
+    // Additional: Line endings become "\n" and the final line break is dropped, as with BufferedReader.readLine().
+    public static String toText(byte[] output)
+    {
+        String text = new String(output, Charset.defaultCharset()).replace("\r\n", "\n").replace('\r', '\n');
+        if (text.endsWith("\n"))
+        {
+            text = text.substring(0, text.length() - 1);
+        }
+        return text;
+    }
+
+    // Grows head (never beyond headLimit) so small outputs only use small buffers
+    private void ensureHeadCapacity(int needed)
+    {
+        if (needed > head.length)
+        {
+            int newSize = (int) Math.min(headLimit, Math.max(needed, (long) head.length * 2));
+            byte[] larger = new byte[newSize];
+            System.arraycopy(head, 0, larger, 0, headLength);
+            head = larger;
+        }
+    }
+}
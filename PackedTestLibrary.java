@@ -0,0 +1,511 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/* Stores all test cases and suites of a save folder in one append-only data file plus an offset index,
+* instead of one small file per test case and suite.
+* Data file (test-library.pack): a header, then records of [kind byte][payload length int][payload].
+* Saving or deleting a test case or suite appends a record; the newest record for a filename wins.
+* Index file (test-library.idx): filename -> offset of the newest record (plus title and type of each
+* test case), for the first N bytes of the data file. Records appended after the index was written are
+* found by scanning only that tail on open.
+* Loading the library only reads the index; input and expected output are read (one positional read of
+* their record) when a case is used. The data file is not memory-mapped: on Windows a mapped file can't be
+* deleted or replaced until the mapping is garbage collected, so close() must release it at once.*/
+public class PackedTestLibrary
+{
+    public static final String DATA_FILE_NAME = "test-library.pack"; // Lives in the save folder
+    public static final String INDEX_FILE_NAME = "test-library.idx";
+    private static final int DATA_MAGIC = 0x544C504B; // "TLPK"
+    private static final int INDEX_MAGIC = 0x544C4958; // "TLIX"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 8; // Magic + version
+    private static final int RECORD_HEADER_BYTES = 5; // Kind + payload length
+    private static final byte TEST_CASE = 1; // Payload: filename, title, type, input, expected output
+    private static final byte TEST_SUITE = 2; // Payload: filename, title, count, test case filenames
+    private static final byte TEST_CASE_DELETED = 3; // Payload: filename
+
+    private File dataFile; // Append-only data file
+    private File indexFile; // Offset index of the data file
+    private FileChannel channel; // Open for reading and appending
+    private long dataLength; // End of the last complete record (= where the next record goes)
+    private Map<String, TestCaseEntry> testCaseEntries; // Test case filename -> its newest record (insertion order)
+    private Map<String, Long> suiteOffsets; // Suite filename -> offset of its newest record
+
+    // Index entry of a test case: where its record is, and the header fields shown without reading it
+    private static class TestCaseEntry
+    {
+        private long offset;
+        private String title;
+        private String type;
+
+        private TestCaseEntry(long offset, String title, String type)
+        {
+            this.offset = offset;
+            this.title = title;
+            this.type = type;
+        }
+    }
+
+    // Opens an existing library (use create() for a new one)
+    private PackedTestLibrary(File saveFolder) throws IOException
+    {
+        this.dataFile = new File(saveFolder, DATA_FILE_NAME);
+        this.indexFile = new File(saveFolder, INDEX_FILE_NAME);
+        this.testCaseEntries = new LinkedHashMap<>();
+        this.suiteOffsets = new LinkedHashMap<>();
+        this.channel = FileChannel.open(dataFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try
+        {
+            load();
+        }
+        catch (IOException | RuntimeException e)
+        {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // Returns true if the save folder holds a packed library
+    public static boolean exists(File saveFolder)
+    {
+        return new File(saveFolder, DATA_FILE_NAME).isFile();
+    }
+
+    // Opens the packed library of a save folder
+    public static PackedTestLibrary open(File saveFolder) throws IOException
+    {
+        return new PackedTestLibrary(saveFolder);
+    }
+
+    // Creates a packed library holding the given test cases and suites (import from the one-file-per-case layout)
+    // Additional: The library is written to a temporary file first, so an existing library is only replaced when complete.
+    public static PackedTestLibrary create(File saveFolder, List<TestCase> testCases, List<TestSuite> suites) throws IOException
+    {
+        Path dataPath = new File(saveFolder, DATA_FILE_NAME).toPath();
+        Path stagingPath = Files.createTempFile(saveFolder.toPath(), "test-library", ".tmp");
+        try (FileChannel staging = FileChannel.open(stagingPath, StandardOpenOption.WRITE))
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(DATA_MAGIC).putInt(FORMAT_VERSION);
+            header.flip();
+            writeFully(staging, header, 0);
+            long position = HEADER_BYTES;
+            for (TestCase testCase : testCases)
+            {
+                position += writeFully(staging, encodeTestCase(testCase), position);
+            }
+            for (TestSuite suite : suites)
+            {
+                position += writeFully(staging, encodeTestSuite(suite), position);
+            }
+            staging.force(true);
+        }
+        catch (IOException | RuntimeException e)
+        {
+            Files.deleteIfExists(stagingPath);
+            throw e;
+        }
+        Files.deleteIfExists(new File(saveFolder, INDEX_FILE_NAME).toPath()); // Rebuilt by open()
+        Files.move(stagingPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return open(saveFolder);
+    }
+
+    // Deletes the library files of a save folder (after exporting it to the one-file-per-case layout)
+    // Additional: The data file goes first; if it can't be deleted (e.g. another program has it open) nothing is
+    // deleted and the library stays usable. An index left behind is ignored without its data file.
+    public static void delete(File saveFolder) throws IOException
+    {
+        Files.deleteIfExists(new File(saveFolder, DATA_FILE_NAME).toPath());
+        try
+        {
+            Files.deleteIfExists(new File(saveFolder, INDEX_FILE_NAME).toPath());
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not delete " + INDEX_FILE_NAME + ": " + e.getMessage());
+        }
+    }
+
+    // Returns all test cases in the library, header-only: input and expected output are read on first use
+    // Additional: Built from the index alone - no test case record is read here.
+    public synchronized List<TestCase> loadTestCases()
+    {
+        List<TestCase> testCases = new ArrayList<>();
+        for (TestCaseEntry entry : testCaseEntries.values())
+        {
+            long offset = entry.offset;
+            testCases.add(TestCase.createLazy(entry.title, entry.type, () -> readTestCase(offset)));
+        }
+        return testCases;
+    }
+
+    // Returns all test suites in the library
+    public synchronized List<TestSuite> loadTestSuites() throws IOException
+    {
+        List<TestSuite> suites = new ArrayList<>();
+        for (long offset : suiteOffsets.values())
+        {
+            ByteBuffer record = readRecord(offset, TEST_SUITE);
+            readString(record); // Filename
+            TestSuite suite = new TestSuite(readString(record));
+            int count = record.getInt();
+            for (int i = 0; i < count; i++)
+            {
+                suite.addTestCaseFilename(readString(record));
+            }
+            if (record.hasRemaining())
+            {
+                suite.setLaunchProfile(LaunchProfile.fromName(readString(record))); // Absent in older records
+            }
+            suites.add(suite);
+        }
+        return suites;
+    }
+
+    // Adds a test case, or replaces the one with the same filename
+    public synchronized void saveTestCase(TestCase testCase) throws IOException
+    {
+        long offset = append(encodeTestCase(testCase));
+        testCaseEntries.put(testCase.getFilename(), new TestCaseEntry(offset, testCase.getTitle(), testCase.getType()));
+    }
+
+    // Adds a test suite, or replaces the one with the same filename
+    public synchronized void saveTestSuite(TestSuite suite) throws IOException
+    {
+        suiteOffsets.put(suite.getFilename(), append(encodeTestSuite(suite)));
+    }
+
+    // Removes the test case with the given filename
+    public synchronized void deleteTestCase(String filename) throws IOException
+    {
+        if (testCaseEntries.remove(filename) != null)
+        {
+            append(encodeRecord(TEST_CASE_DELETED, filename));
+        }
+    }
+
+    // Writes the index for everything appended so far and closes the data file
+    public synchronized void close() throws IOException
+    {
+        if (!channel.isOpen())
+        {
+            return;
+        }
+        try
+        {
+            writeIndex();
+        }
+        finally
+        {
+            channel.close();
+        }
+    }
+
+    // Reads the full test case stored at offset (the payload loader of the header-only test cases)
+    private TestCase readTestCase(long offset) throws IOException
+    {
+        ByteBuffer record = readRecord(offset, TEST_CASE);
+        readString(record); // Filename
+        String title = readString(record);
+        String type = readString(record);
+        String inputData = readString(record);
+        String expectedOutput = readString(record);
+        return new TestCase(title, inputData, expectedOutput, type);
+    }
+
+    // Reads the index (if it matches the data file), then scans the records appended after it
+    // Additional: A record cut short by a crash during an append is dropped from the end of the file.
+    private void load() throws IOException
+    {
+        long fileLength = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (fileLength < HEADER_BYTES || channel.read(header, 0) < HEADER_BYTES
+            || header.getInt(0) != DATA_MAGIC || header.getInt(4) != FORMAT_VERSION)
+        {
+            throw new IOException("Not a packed test library (or an unsupported version): " + dataFile.getName());
+        }
+
+        long indexedLength = readIndex(fileLength);
+        long position = indexedLength;
+        while (position + RECORD_HEADER_BYTES <= fileLength)
+        {
+            ByteBuffer recordHeader = read(position, RECORD_HEADER_BYTES);
+            byte kind = recordHeader.get();
+            int length = recordHeader.getInt();
+            if (length < 0 || position + RECORD_HEADER_BYTES + length > fileLength)
+            {
+                break; // Incomplete last record
+            }
+            ByteBuffer record = read(position + RECORD_HEADER_BYTES, length);
+            String filename = readString(record);
+            if (kind == TEST_CASE)
+            {
+                String title = readString(record);
+                testCaseEntries.put(filename, new TestCaseEntry(position, title, readString(record)));
+            }
+            else if (kind == TEST_SUITE)
+            {
+                suiteOffsets.put(filename, position);
+            }
+            else if (kind == TEST_CASE_DELETED)
+            {
+                testCaseEntries.remove(filename);
+            }
+            else
+            {
+                throw new IOException("Unknown record kind " + kind + " at offset " + position + " in " + dataFile.getName());
+            }
+            position += RECORD_HEADER_BYTES + length;
+        }
+        dataLength = position;
+        if (dataLength < fileLength)
+        {
+            System.err.println("Dropping incomplete record at the end of " + dataFile.getName());
+            channel.truncate(dataLength);
+        }
+        if (dataLength != indexedLength)
+        {
+            writeIndex(); // The next open needs no scan
+        }
+    }
+
+    // Reads the offsets from the index file and returns how much of the data file they cover
+    // Additional: Returns HEADER_BYTES (scan everything) if the index is missing, unreadable or newer than the data.
+    private long readIndex(long fileLength)
+    {
+        if (!indexFile.isFile())
+        {
+            return HEADER_BYTES;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile.toPath()))))
+        {
+            if (in.readInt() != INDEX_MAGIC || in.readInt() != FORMAT_VERSION)
+            {
+                return HEADER_BYTES;
+            }
+            long indexedLength = in.readLong();
+            if (indexedLength < HEADER_BYTES || indexedLength > fileLength)
+            {
+                return HEADER_BYTES; // Index belongs to another (e.g. replaced) data file
+            }
+            int testCaseCount = in.readInt();
+            for (int i = 0; i < testCaseCount; i++)
+            {
+                String filename = readIndexString(in);
+                long offset = in.readLong();
+                String title = readIndexString(in);
+                testCaseEntries.put(filename, new TestCaseEntry(offset, title, readIndexString(in)));
+            }
+            int suiteCount = in.readInt();
+            for (int i = 0; i < suiteCount; i++)
+            {
+                String filename = readIndexString(in);
+                suiteOffsets.put(filename, in.readLong());
+            }
+            return indexedLength;
+        }
+        catch (IOException e)
+        {
+            System.err.println("Rebuilding test library index: " + e.getMessage());
+            testCaseEntries.clear();
+            suiteOffsets.clear();
+            return HEADER_BYTES;
+        }
+    }
+
+    // Writes the index for the current data length (temporary file, then moved over the old index)
+    private void writeIndex() throws IOException
+    {
+        Path staging = Files.createTempFile(indexFile.getParentFile().toPath(), "test-library", ".idx.tmp");
+        try
+        {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(staging))))
+            {
+                out.writeInt(INDEX_MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeLong(dataLength);
+                out.writeInt(testCaseEntries.size());
+                for (Map.Entry<String, TestCaseEntry> entry : testCaseEntries.entrySet())
+                {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue().offset);
+                    writeString(out, entry.getValue().title);
+                    writeString(out, entry.getValue().type);
+                }
+                out.writeInt(suiteOffsets.size());
+                for (Map.Entry<String, Long> entry : suiteOffsets.entrySet())
+                {
+                    writeString(out, entry.getKey());
+                    out.writeLong(entry.getValue());
+                }
+            }
+            Files.move(staging, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    // Appends a record to the data file and returns its offset
+    // Additional: The index is not rewritten here; the next open() scans the appended tail instead.
+    private long append(ByteBuffer record) throws IOException
+    {
+        long offset = dataLength;
+        dataLength += writeFully(channel, record, offset);
+        channel.force(false);
+        return offset;
+    }
+
+    // Returns the record at offset (positioned at its payload), checking its kind
+    private synchronized ByteBuffer readRecord(long offset, byte expectedKind) throws IOException
+    {
+        ByteBuffer recordHeader = read(offset, RECORD_HEADER_BYTES);
+        byte kind = recordHeader.get();
+        int length = recordHeader.getInt();
+        if (kind != expectedKind)
+        {
+            throw new IOException("Unexpected record kind " + kind + " at offset " + offset + " in " + dataFile.getName());
+        }
+        if (length < 0 || offset + RECORD_HEADER_BYTES + length > dataLength)
+        {
+            throw new EOFException("Record past the end of " + dataFile.getName());
+        }
+        return read(offset + RECORD_HEADER_BYTES, length);
+    }
+
+    // Reads length bytes of the data file starting at offset into a new buffer (positioned at its start)
+    private ByteBuffer read(long offset, int length) throws IOException
+    {
+        if (!channel.isOpen())
+        {
+            throw new IOException("Test library is closed: " + dataFile.getName());
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer, offset + buffer.position()) < 0)
+            {
+                throw new EOFException("Record past the end of " + dataFile.getName());
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    // Encodes a test case record
+    private static ByteBuffer encodeTestCase(TestCase testCase)
+    {
+        return encodeRecord(TEST_CASE, testCase.getFilename(), testCase.getTitle(), testCase.getType(),
+            testCase.getInputData(), testCase.getExpectedOutput());
+    }
+
+    // Encodes a test suite record (title, then the number of test case filenames and the filenames,
+    // then the launch profile name)
+    private static ByteBuffer encodeTestSuite(TestSuite suite)
+    {
+        List<String> filenames = suite.getTestCaseFilenames();
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeString(out, suite.getFilename());
+            writeString(out, suite.getTitle());
+            out.writeInt(filenames.size());
+            for (String filename : filenames)
+            {
+                writeString(out, filename);
+            }
+            writeString(out, suite.getLaunchProfile().name());
+            return frame(TEST_SUITE, bytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e); // Cannot happen for an in-memory stream
+        }
+    }
+
+    // Encodes a record whose payload is a list of strings
+    private static ByteBuffer encodeRecord(byte kind, String... strings)
+    {
+        try
+        {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            for (String string : strings)
+            {
+                writeString(out, string);
+            }
+            return frame(kind, bytes.toByteArray());
+        }
+        catch (IOException e)
+        {
+            throw new IllegalStateException(e); // Cannot happen for an in-memory stream
+        }
+    }
+
+    // Puts the record header in front of a payload
+    private static ByteBuffer frame(byte kind, byte[] payload)
+    {
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.put(kind).putInt(payload.length).put(payload);
+        record.flip();
+        return record;
+    }
+
+    // Writes a string as its UTF-8 length followed by the bytes (no 64 KB limit like writeUTF; null is stored as "")
+    private static void writeString(DataOutputStream out, String string) throws IOException
+    {
+        byte[] bytes = (string != null ? string : "").getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    // Reads a string written by writeString from the index file
+    private static String readIndexString(DataInputStream in) throws IOException
+    {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Reads a string written by writeString
+    private static String readString(ByteBuffer buffer) throws IOException
+    {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining())
+        {
+            throw new IOException("Corrupt string in packed test library");
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Writes the whole buffer at position and returns the number of bytes written
+    private static int writeFully(FileChannel target, ByteBuffer buffer, long position) throws IOException
+    {
+        int written = 0;
+        while (buffer.hasRemaining())
+        {
+            written += target.write(buffer, position + written);
+        }
+        return written;
+    }
+}
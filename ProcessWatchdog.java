@@ -0,0 +1,73 @@
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/* Enforces a wall-clock time limit on a running process.
+* When the limit is reached the process and all of its descendants are killed,
+* which also unblocks any thread still reading from or writing to its pipes.*/
+public class ProcessWatchdog
+{
+    // One shared timer thread for every watched process
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "process-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Process process; // The process being watched
+    private volatile boolean fired; // true once the time limit was reached and the process killed
+    private ScheduledFuture<?> task; // Pending kill, null if there is no time limit
+
+    // Constructor: use start() instead
+    private ProcessWatchdog(Process process)
+    {
+        this.process = process;
+    }
+
+    // Start watching a process; a timeout of 0 or less means no limit
+    public static ProcessWatchdog start(Process process, long timeoutMillis)
+    {
+        ProcessWatchdog watchdog = new ProcessWatchdog(process);
+        if (timeoutMillis > 0)
+        {
+            watchdog.task = TIMER.schedule(watchdog::fire, timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        return watchdog;
+    }
+
+    // Stop watching (call once the process has finished)
+    // Returns true if the process had already been killed for exceeding its time limit
+    public boolean cancel()
+    {
+        if (task != null)
+        {
+            task.cancel(false);
+        }
+        return fired;
+    }
+
+    // Called by the timer when the limit is reached
+    private void fire()
+    {
+        if (process.isAlive())
+        {
+            fired = true;
+            destroyTree(process);
+        }
+    }
+
+    // Kills a process together with every process it started
+    // Additional: Descendants are collected first, because they are re-parented once the parent dies.
+    public static void destroyTree(Process process)
+    {
+        List<ProcessHandle> descendants = process.descendants().collect(Collectors.toList());
+        process.destroyForcibly();
+        for (ProcessHandle descendant : descendants)
+        {
+            descendant.destroyForcibly();
+        }
+    }
+}
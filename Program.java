@@ -1,22 +1,43 @@
 import java.io.File;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.FileReader;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 /* Represents an external Java program submission.
 * This class is responsible for compiling and running the external source file
-* and managing the results (exit code, output, compilation status).*/
+* and managing the results (exit code, output, compilation status).
+* A submission is compiled as one unit: every .java file under its source root (the folder
+* holding the entry point's package) in a single compiler call, into a class output folder.
+* It is run by the fully qualified name of the entry point's class.*/
 public class Program
 {
+    private static final Pattern PACKAGE_DECLARATION = Pattern.compile("^\\s*package\\s+([\\w.]+)\\s*;", Pattern.MULTILINE);
+    private static final Pattern PUBLIC_CLASS_DECLARATION =
+        Pattern.compile("^\\s*public\\s+(?:(?:final|abstract|strictfp)\\s+)*class\\s+(\\w+)", Pattern.MULTILINE);
+
     private String name; // Name of the student or submission folder
     private File sourceFile; // The Java source file associated with this program
     private Boolean compilationStatus = null; // null = not tried, true = compiled successfully, false = compilation failed
-    private Integer lastExitCode = null; // Exit code from last program execution
     private String className = null; // Cached class name extracted from source file
+    private CompileResult compileResult = null; // Result of the last compilation, including compiler messages
+    private volatile File classOutputFolder = null; // Folder holding the compiled classes (null = next to the source file)
+    private ScratchSpace scratchSpace = null; // Where classes are compiled when the compile cache is not used (null = shared)
+    private String sourceHash = null; // Cached hash of the submission's source files
+    private String packageName = null; // Package of the entry point ("" = default package), read with the class name
+    private File sourceRoot = null; // Cached folder the submission's packages start in
+    private RunnerWorkerProcess batchWorker = null; // Worker JVM running this submission's test cases in BATCHED mode
+    private int batchRunsLeft = 0; // Runs the open batch still expects (0 = no batch open, see openBatch())
 
     // Constructor: initializes a Program object with a name and source file
     // Additional: Used to represent a student's submission in the grading system
@@ -34,15 +55,213 @@ public class Program
     // Additional: Needed for compiling or executing the student's program
     public File getSourceFile() { return sourceFile; }
     
-    //Attempts to compile the source file using the 'javac' command.
-    //The compilation is run as a separate external process.
+    //Attempts to compile the source file with the shared in-process compiler.
+    //Falls back to running the 'javac' command when no compiler is available in this runtime.
     // Compile this Java program
     // Returns true if compilation succeeds, false otherwise
     public boolean compile()
+    {
+        return compile(null);
+    }
+
+    // Compile this Java program, writing class files to outputFolder (null = a new folder in the scratch space)
+    // Returns true if compilation succeeds, false otherwise
+    // Additional: All source files are passed in one call, and source lookups are limited to the submission's
+    // source root, so nothing is picked up from the grader's working directory.
+    private boolean compile(File outputFolder)
+    {
+        List<File> sourceFiles = getSourceFiles();
+        try
+        {
+            if (outputFolder == null)
+            {
+                ScratchSpace space = scratchSpace != null ? scratchSpace : ScratchSpace.getShared();
+                outputFolder = Files.createDirectories(space.newClassesFolder(this).toPath()).toFile();
+            }
+        }
+        catch (IOException e)
+        {
+            compileResult = new CompileResult(false, "Could not create class output folder: " + e.getMessage());
+            return false;
+        }
+
+        List<String> options = new ArrayList<>();
+        options.add("-d");
+        options.add(outputFolder.getAbsolutePath());
+        options.add("-sourcepath");
+        options.add(getSourceRoot().getAbsolutePath());
+        options.add("-classpath");
+        options.add(outputFolder.getAbsolutePath());
+
+        CompilerService compilerService = CompilerService.getShared();
+        if (compilerService.isAvailable())
+        {
+            compileResult = compilerService.compile(sourceFiles, options);
+        }
+        else
+        {
+            compileResult = compileWithJavacProcess(sourceFiles, options);
+        }
+        classOutputFolder = outputFolder;
+        return compileResult.isSuccess();
+    }
+
+    // Compile through the persistent compile cache
+    // Unchanged submissions (same source hash) reuse the cached classes and result without compiling
+    private boolean compileWithCache(CompileCache cache)
+    {
+        try
+        {
+            String hash = getSourceHash();
+            CompileResult cached = cache.lookup(hash);
+            if (cached != null)
+            {
+                compileResult = cached;
+            }
+            else
+            {
+                File stagingFolder = cache.createStagingFolder();
+                compile(stagingFolder);
+                cache.store(hash, compileResult, stagingFolder);
+            }
+            classOutputFolder = cache.getClassesFolder(hash);
+            return compileResult.isSuccess();
+        }
+        catch (IOException e)
+        {   // Cache not usable (e.g. read-only save folder) - compile into the scratch space without caching
+            return compile();
+        }
+    }
+
+    // Returns the Java source files of this submission, sorted by path: the entry point and every .java file
+    // under the source root whose package matches its folder (the files javac itself would find there)
+    // Additional: Hidden folders (e.g. .git) and stray copies (backup/Helper.java without "package backup;")
+    // are left out, so they can't clash with the real classes.
+    public List<File> getSourceFiles()
+    {
+        Path root = getSourceRoot().toPath();
+        Path entryPoint = sourceFile.getAbsoluteFile().toPath();
+        try (Stream<Path> paths = Files.walk(root))
+        {
+            return paths
+                .filter(path -> path.toString().endsWith(".java") && Files.isRegularFile(path))
+                .filter(path -> !isInHiddenFolder(root.relativize(path)))
+                .filter(path -> path.equals(entryPoint) || isInPackageFolder(root.relativize(path), path.toFile()))
+                .sorted(Comparator.comparing(path -> root.relativize(path).toString().replace(File.separatorChar, '/')))
+                .map(Path::toFile)
+                .collect(Collectors.toList());
+        }
+        catch (IOException | RuntimeException e)
+        {   // Folder unreadable - compile the entry point alone, so the compiler reports the problem
+            return List.of(sourceFile);
+        }
+    }
+
+    // Returns true if a path relative to the source root goes through a hidden folder
+    private static boolean isInHiddenFolder(Path relativePath)
+    {
+        for (int i = 0; i < relativePath.getNameCount() - 1; i++)
+        {
+            if (relativePath.getName(i).toString().startsWith("."))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Returns true if a source file's package matches its folder relative to the source root
+    private static boolean isInPackageFolder(Path relativePath, File file)
+    {
+        Path folder = relativePath.getParent();
+        String expectedPackage = folder == null ? "" : folder.toString().replace(File.separatorChar, '.');
+        return expectedPackage.equals(readPackageName(file));
+    }
+
+    // Returns the folder the submission's packages start in
+    // Additional: The entry point's folder, moved up one level per package name part when the folders match
+    // the package (src/com/example/Main.java in package com.example -> src). Otherwise the entry point's folder.
+    public synchronized File getSourceRoot()
+    {
+        if (sourceRoot == null)
+        {
+            File root = sourceFile.getAbsoluteFile().getParentFile();
+            String[] packageParts = getPackageName().isEmpty() ? new String[0] : getPackageName().split("\\.");
+            File candidate = root;
+            for (int i = packageParts.length - 1; i >= 0 && candidate != null; i--)
+            {
+                candidate = candidate.getName().equals(packageParts[i]) ? candidate.getParentFile() : null;
+            }
+            sourceRoot = candidate != null ? candidate : root;
+        }
+        return sourceRoot;
+    }
+
+    // Returns a hash of this submission's source files (computed once)
+    // Additional: Two submissions with identical sources share the same hash and compile cache entry.
+    public synchronized String getSourceHash() throws IOException
+    {
+        if (sourceHash == null)
+        {
+            sourceHash = CompileCache.hashSources(getSourceRoot(), getSourceFiles());
+        }
+        return sourceHash;
+    }
+
+    // Sets the scratch space this program is compiled into when the compile cache is not used (null = shared)
+    // Additional: Used by GradingEngine, which gives each suite execution its own scratch space.
+    public synchronized void setScratchSpace(ScratchSpace scratchSpace)
+    {
+        this.scratchSpace = scratchSpace;
+    }
+
+    // Forgets classes compiled into the scratch space (before it is deleted); the next run compiles again
+    // Additional: The compile result is kept, so its messages stay available. Cached classes are kept too.
+    public synchronized void releaseScratchSpace()
+    {
+        File folder = classOutputFolder;
+        if (scratchSpace != null && folder != null && folder.getParentFile().equals(scratchSpace.getFolder()))
+        {
+            compilationStatus = null;
+            classOutputFolder = null;
+        }
+        scratchSpace = null;
+    }
+
+    // Returns the folder to use as classpath when running this program
+    private File getClassPathFolder()
+    {
+        File folder = classOutputFolder;
+        return folder != null ? folder : sourceFile.getParentFile();
+    }
+
+    // Returns the result of the last compilation (including compiler messages), or null if not compiled yet
+    public CompileResult getCompileResult() { return compileResult; }
+
+    // Returns true if this program was compiled and the compile failed (does not compile it)
+    public synchronized boolean hasFailedToCompile()
+    {
+        return Boolean.FALSE.equals(compilationStatus);
+    }
+
+    // Returns the compiler messages of the last compilation (empty if not compiled yet)
+    public List<CompileDiagnostic> getCompileDiagnostics()
+    {
+        CompileResult result = compileResult;
+        return result != null ? result.getDiagnostics() : List.of();
+    }
+
+    //Compiles the source file by running 'javac' as a separate external process.
+    //Only used when the grading JVM has no built-in compiler (e.g. a plain JRE).
+    private CompileResult compileWithJavacProcess(List<File> sourceFiles, List<String> options)
     {
         List<String> cmd = new ArrayList<>();
         cmd.add("javac");
-        cmd.add(sourceFile.getAbsolutePath()); // Use full file path
+        cmd.addAll(options);
+        for (File file : sourceFiles)
+        {
+            cmd.add(file.getAbsolutePath()); // Use full file path
+        }
         
         ProcessBuilder pb = new ProcessBuilder(cmd);
         pb.redirectErrorStream(true); // Merge stdout & stderr
@@ -51,172 +270,329 @@ public class Program
         {
             Process p = pb.start();
             
-            // Read combined output (discard for now, but could be logged)
+            // Read combined output so compiler messages are kept with the result
+            StringBuilder output = new StringBuilder();
             try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream())))
             {
                 String line;
                 while ((line = r.readLine()) != null)
                 {
-                    // Compilation errors are captured but not displayed here
-                    // They're indicated by non-zero exit code
+                    output.append(line).append("\n");
                 }
             }
             
             int exit = p.waitFor();
-            if (exit != 0)
-            {
-                return false;
-            }
-            return true;
+            return new CompileResult(exit == 0, output.toString());
         }
         catch (IOException e)
         {    // Failed to start javac process (e.g., 'javac' command not found on system path)
-            return false;
+            return new CompileResult(false, "Could not start javac: " + e.getMessage());
         }
         catch (InterruptedException e)
         {    // Current thread was interrupted while waiting for the process to finish
             Thread.currentThread().interrupt();
-            return false;
+            return new CompileResult(false, "Compilation interrupted");
         }
     }
     
-    //Extracts the main public class name from the source file content.
-    //This is required to properly execute the program using 'java <className>'.
-    // Extract the class name from the Java source file
-    // Reads the file and finds the public class declaration
-    private String extractClassName()
+    //Extracts the main public class name from the source file content.
+    //This is required to properly execute the program using 'java <className>'.
+    // Extract the fully qualified class name from the Java source file
+    // Reads the file and finds the package and the public class declaration
+    private synchronized String extractClassName()
     {
         if (className != null)
         {
             return className; // Return cached class name
         }
         
+        String simpleName = sourceFile.getName().replace(".java", ""); // Fallback: filename without extension
+        String packagePrefix = "";
         try
         {
-            BufferedReader reader = new BufferedReader(new FileReader(sourceFile));
-            String line;
-            while ((line = reader.readLine()) != null)
+            String source = new String(Files.readAllBytes(sourceFile.toPath()), StandardCharsets.ISO_8859_1);
+            Matcher publicClass = PUBLIC_CLASS_DECLARATION.matcher(stripComments(source));
+            if (publicClass.find())
             {
-                line = line.trim();
-                // Look for public class declaration
-                if (line.startsWith("public class "))
-                {
-                    // Extract class name (e.g., "public class MyClass {" -> "MyClass")
-                    int start = "public class ".length();
-                    int end = line.indexOf(' ', start);
-                    if (end == -1)
-                    {
-                        end = line.indexOf('{', start);
-                    }
-                    if (end == -1)
-                    {
-                        end = line.length();
-                    }
-                    className = line.substring(start, end).trim();
-                    reader.close();
-                    return className;
-                }
+                simpleName = publicClass.group(1); // e.g. "public class MyClass {" -> "MyClass"
             }
-            reader.close();
+            packagePrefix = getPackageName().isEmpty() ? "" : getPackageName() + ".";
         }
-        catch (Exception e)
-        {   // Handle exceptions during file reading or string manipulation]
-            // If extraction fails, fall back to filename
+        catch (IOException e)
+        {   // If extraction fails, fall back to filename
         }
-        
-        // Fallback: use filename without extension
-        className = sourceFile.getName().replace(".java", "");
+        className = packagePrefix + simpleName;
         return className;
     }
-    
-    //Executes the compiled Java class file with the provided input data.
-    //It pipes inputData to stdin and captures all output from stdout/stderr.
-    // Run this compiled Java program with input data
-    // Returns the program's output as a string
-    public String run(String inputData)
+
+    // Returns the package declared by the entry point file ("" for the default package or if unreadable)
+    private synchronized String getPackageName()
+    {
+        if (packageName == null)
+        {
+            packageName = readPackageName(sourceFile);
+        }
+        return packageName;
+    }
+
+    // Reads the package declared by a source file ("" for the default package or if unreadable)
+    private static String readPackageName(File javaFile)
     {
         try
         {
-            File sourceDir = sourceFile.getParentFile();
-            String classPath = sourceDir.getAbsolutePath();
-            // The class files (.class) are assumed to be in the same directory as the .java source.
-            String classNameToRun = extractClassName();
-            
-            // Build java command with explicit classpath
-            List<String> cmd = new ArrayList<>();
-            cmd.add("java");
-            cmd.add("-cp");
-            cmd.add(classPath);
-            cmd.add(classNameToRun);
-            
-            ProcessBuilder pb = new ProcessBuilder(cmd);
-            pb.redirectErrorStream(true); // Merge stdout & stderr
-            
-            Process process = pb.start();
-            
-            // Write input data to process stdin (UTF-8 encoded)
-            if (inputData != null && !inputData.isEmpty())
-            {    // Use try-with-resources to ensure the OutputStreamWriter is closed.
-                try (OutputStreamWriter writer = new OutputStreamWriter(
-                        process.getOutputStream(), StandardCharsets.UTF_8))
-                {
-                    writer.write(inputData);
-                    writer.flush();
-                    // Stream will be closed by try-with-resources, signaling EOF
-                }
-                catch (IOException e)
-                {
-                    // If writing fails, allow process to proceed
-                }
-            }
-            else
+            String source = new String(Files.readAllBytes(javaFile.toPath()), StandardCharsets.ISO_8859_1);
+            Matcher declaration = PACKAGE_DECLARATION.matcher(stripComments(source));
+            return declaration.find() ? declaration.group(1) : "";
+        }
+        catch (IOException e)
+        {
+            return ""; // Treated as the default package; compiling reports the unreadable file
+        }
+    }
+
+    // Blanks out comments, so a commented-out package declaration is not mistaken for a real one
+    // Additional: Line breaks are kept, so line-based patterns still see the same lines.
+    private static String stripComments(String source)
+    {
+        StringBuilder text = new StringBuilder(source.length());
+        int i = 0;
+        while (i < source.length())
+        {
+            if (source.startsWith("//", i))
             {
-                // If no input, close stdin to avoid child waiting
-                try
-                {
-                    process.getOutputStream().close();
-                }
-                catch (IOException ignored) { }
+                int end = source.indexOf('\n', i);
+                i = end >= 0 ? end : source.length();
             }
-            
-            // Read output from process
-            StringBuilder output = new StringBuilder();
-            try (BufferedReader reader = new BufferedReader(
-                    new InputStreamReader(process.getInputStream())))
+            else if (source.startsWith("/*", i))
             {
-                String line;
-                while ((line = reader.readLine()) != null)
+                int end = source.indexOf("*/", i + 2);
+                int stop = end >= 0 ? end + 2 : source.length();
+                for (int j = i; j < stop; j++)
                 {
-                    if (output.length() > 0)
+                    if (source.charAt(j) == '\n')
                     {
-                        output.append("\n");
+                        text.append('\n');
                     }
-                    output.append(line);
                 }
+                i = stop;
             }
-            
-            int exitCode = process.waitFor();
-            
-            // Store exit code for runtime error detection
-            lastExitCode = exitCode;
-            
-            return output.toString();
+            else
+            {
+                text.append(source.charAt(i++));
+            }
+        }
+        return text.toString();
+    }
+    
+    //Executes the compiled Java class file with the provided input data.
+    //It pipes inputData to stdin and captures all output from stdout/stderr.
+    // Run this compiled Java program with input data
+    // Returns the program's output as a string
+    public String run(String inputData)
+    {
+        return execute(inputData).getOutput();
+    }
+
+    // Run this compiled Java program with input data
+    // Returns the output together with the exit code, so parallel runs don't share state
+    public RunOutcome execute(String inputData)
+    {
+        return execute(inputData, new ExecutionSettings());
+    }
+
+    // Run this compiled Java program with input data, started as selected by the settings' run mode
+    // Returns the output together with the exit code, so parallel runs don't share state
+    public RunOutcome execute(String inputData, ExecutionSettings settings)
+    {
+        return execute(inputData, settings, settings.getCaseTimeoutMillis(), new ExecutionControl());
+    }
+
+    // Run this compiled Java program with input data, stopping it after timeoutMillis (0 = no limit)
+    // Returns the output together with the exit code and whether the time limit was hit
+    // Additional: The started process is registered with control, so cancelling the run kills it.
+    public RunOutcome execute(String inputData, ExecutionSettings settings, long timeoutMillis, ExecutionControl control)
+    {
+        return execute(RunInput.ofText(inputData), null, settings, timeoutMillis, control);
+    }
+
+    // Run this compiled Java program with the given input (text or a file streamed to it)
+    // If expectedOutputFile is set, the output is also compared with it while it is produced
+    // (see RunOutcome.getExpectedOutputMatched()), so the comparison sees output past the kept limit.
+    public RunOutcome execute(RunInput input, File expectedOutputFile, ExecutionSettings settings, long timeoutMillis,
+                              ExecutionControl control)
+    {
+        if (settings.getRunMode() == RunMode.WARM_POOL)
+        {
+            RunOutcome outcome = WarmRunnerPool.getShared().run(getClassPathFolder(), extractClassName(), input,
+                expectedOutputFile, timeoutMillis, settings.getOutputLimitBytes(), control);
+            return withResourceLimitStatus(outcome,
+                settings.getResourceLimits().getWorkerReportedStatus(outcome.getResourceLimitStatus()));
+        }
+        if (settings.getRunMode() == RunMode.BATCHED)
+        {
+            return runBatched(input, expectedOutputFile, settings, timeoutMillis, control);
+        }
+        ForkedRun run = null;
+        try
+        {
+            run = startInNewProcess(input, expectedOutputFile, timeoutMillis, settings, control);
+            return run.getOutcome().get();
         }
         catch (InterruptedException e)
         {
             Thread.currentThread().interrupt();
+            run.kill(); // Never leave a student process running after we stop waiting for it
             // Indicates the grading system thread was terminated while waiting for the program.
-            return "ERROR: Execution interrupted";
+            return new RunOutcome("ERROR: Execution interrupted", null);
+        }
+        catch (Exception e)
+        {    // Catch-all for IO or process-related errors.
+            return new RunOutcome("ERROR: " + e.getMessage(), null);
+        }
+    }
+
+    // Start this compiled Java program with the given input, like execute() does
+    // Returns a future completed with the outcome once the program has finished
+    // Additional: In FORK_PER_CASE mode no thread waits while the program runs (see ForkedRun);
+    // WARM_POOL and BATCHED runs run on the calling thread and return a completed future.
+    public CompletableFuture<RunOutcome> start(RunInput input, File expectedOutputFile, ExecutionSettings settings,
+                                               long timeoutMillis, ExecutionControl control)
+    {
+        if (settings.getRunMode() == RunMode.WARM_POOL || settings.getRunMode() == RunMode.BATCHED)
+        {
+            return CompletableFuture.completedFuture(execute(input, expectedOutputFile, settings, timeoutMillis, control));
+        }
+        try
+        {
+            return startInNewProcess(input, expectedOutputFile, timeoutMillis, settings, control).getOutcome();
         }
         catch (Exception e)
         {    // Catch-all for IO or process-related errors.
-            return "ERROR: " + e.getMessage();
+            return CompletableFuture.completedFuture(new RunOutcome("ERROR: " + e.getMessage(), null));
+        }
+    }
+
+    // Start this compiled Java program in a new 'java' process
+    // The process (and anything it started) is killed if it runs longer than timeoutMillis
+    // At most the settings' output limit of its output is kept; the rest is dropped
+    // The process gets the settings' launch profile flags and resource limits
+    private ForkedRun startInNewProcess(RunInput input, File expectedOutputFile, long timeoutMillis,
+                                       ExecutionSettings settings, ExecutionControl control) throws IOException
+    {
+        ResourceLimits limits = settings.getResourceLimits();
+
+        // The class files (.class) are next to the .java source, or in the compile cache
+        String classPath = getClassPathFolder().getAbsolutePath();
+        String classNameToRun = extractClassName();
+        
+        // Build java command with explicit classpath, launch profile flags, heap/stack options and OS limits
+        List<String> cmd = new ArrayList<>();
+        cmd.add(WarmRunnerPool.getJavaCommand());
+        cmd.addAll(StartupArchive.getJvmOptions(settings));
+        cmd.addAll(limits.getJvmOptions());
+        cmd.add("-cp");
+        cmd.add(classPath);
+        cmd.add(classNameToRun);
+        
+        // The input file of the run goes to the scratch space, like the compiled classes
+        ScratchSpace space = scratchSpace != null ? scratchSpace : ScratchSpace.getShared();
+        return ForkedRun.start(limits.applyTo(cmd), limits, input, expectedOutputFile, space.getFolder(), timeoutMillis,
+            settings.getOutputLimitBytes(), control);
+    }
+
+    // Opens a batch of runCount runs (BATCHED mode): they share one worker JVM, started by the first of them
+    // Additional: Without an open batch, each BATCHED run starts a worker JVM of its own and stops it afterwards.
+    public synchronized void openBatch(int runCount)
+    {
+        batchRunsLeft = Math.max(0, runCount);
+    }
+
+    // Closes the open batch and stops its worker JVM
+    public synchronized void closeBatch()
+    {
+        batchRunsLeft = 0;
+        stopBatchWorker();
+    }
+
+    // Run this compiled Java program in the submission's worker JVM (see RunnerWorkerProcess)
+    // The worker loads the classes in a new class loader for every run and points System.in/out at the run's data,
+    // so the runs of a batch don't share static state, yet the JVM start-up is paid once per submission
+    // Additional: A worker killed for its time limit, or halted by the program, is replaced for the next run.
+    // Its exit code tells whether the heap or CPU time limit was reached (see ResourceLimits).
+    private synchronized RunOutcome runBatched(RunInput input, File expectedOutputFile, ExecutionSettings settings,
+                                               long timeoutMillis, ExecutionControl control)
+    {
+        ResourceLimits limits = settings.getResourceLimits();
+        int runsLeft = Math.max(1, batchRunsLeft);
+        batchRunsLeft = Math.max(0, batchRunsLeft - 1);
+        try
+        {
+            if (batchWorker == null || !batchWorker.isUsable())
+            {
+                // Launch profile flags and heap/stack options as for a forked run; the CPU limit covers the whole batch
+                List<String> cmd = new ArrayList<>();
+                cmd.add(WarmRunnerPool.getJavaCommand());
+                cmd.addAll(StartupArchive.getJvmOptions(settings));
+                cmd.addAll(limits.getJvmOptions());
+                batchWorker = RunnerWorkerProcess.start(limits.applyTo(cmd, runsLeft));
+            }
+        }
+        catch (IOException e)
+        {
+            return new RunOutcome("ERROR: Runner worker failed: " + e.getMessage(), null);
+        }
+
+        RunnerWorkerProcess worker = batchWorker;
+        RunOutcome outcome = worker.run(getClassPathFolder(), extractClassName(), input, expectedOutputFile, timeoutMillis,
+            settings.getOutputLimitBytes(), control);
+        if (outcome.getResourceLimitStatus() != null)
+        {
+            outcome = withResourceLimitStatus(outcome, limits.getWorkerReportedStatus(outcome.getResourceLimitStatus()));
+        }
+        else if (!outcome.isTimedOut() && worker.isBroken())
+        {
+            // A worker that died during the run reports its exit code as the run's (System.exit() is trapped in it)
+            outcome = withResourceLimitStatus(outcome, limits.getWorkerBreachStatus(outcome.getExitCode()));
+        }
+        if (batchRunsLeft == 0)
+        {
+            stopBatchWorker(); // Last run of the batch, or a run outside any batch
+        }
+        return outcome;
+    }
+
+    // Returns outcome with the given resource limit status (null = none)
+    private static RunOutcome withResourceLimitStatus(RunOutcome outcome, String status)
+    {
+        if (Objects.equals(status, outcome.getResourceLimitStatus()))
+        {
+            return outcome;
+        }
+        return new RunOutcome(outcome.getOutput(), outcome.getExitCode(), outcome.isTimedOut(),
+            outcome.isOutputLimitExceeded(), outcome.getExpectedOutputMatched(), status);
+    }
+
+    // Stops the worker JVM of the batch (if one is running)
+    private synchronized void stopBatchWorker()
+    {
+        if (batchWorker != null)
+        {
+            batchWorker.stop();
+            batchWorker = null;
         }
     }
 
     // Ensure the program is compiled (only compiles once, reuses compilation status)
     // Returns true if compilation succeeds or already succeeded, false otherwise
     public boolean ensureCompiled()
+    {
+        return ensureCompiled(new ExecutionSettings());
+    }
+
+    // Ensure the program is compiled, using the compile cache from the settings if there is one
+    // Returns true if compilation succeeds or already succeeded, false otherwise
+    // Synchronized so parallel test cases of the same program never compile it twice
+    public synchronized boolean ensureCompiled(ExecutionSettings settings)
     {
         // If we've already tried to compile, return the cached result
         if (compilationStatus != null)
@@ -224,51 +600,112 @@ public class Program
             return compilationStatus;
         }
         
-        // Try to compile and cache the result
-        compilationStatus = compile();
+        // Try to compile (or reuse a cached compile) and remember the result
+        File compileCacheFolder = settings.getCompileCacheFolder();
+        if (compileCacheFolder != null)
+        {
+            compilationStatus = compileWithCache(new CompileCache(compileCacheFolder));
+        }
+        else
+        {
+            compilationStatus = compile();
+        }
         return compilationStatus;
     }
 
-    //Executes a single test case against the compiled program.
-    //Handles compilation status, runtime errors, and output comparison.
+    //Executes a single test case against the compiled program.
+    //Handles compilation status, runtime errors, and output comparison.
     // Execute a test case against this program
     // Returns a TestResult object containing execution results
+    // Additional: Safe to call from several worker threads at once (see GradingEngine).
     public TestResult executeTestCase(TestCase testCase)
+    {
+        return executeTestCase(testCase, new ExecutionSettings());
+    }
+
+    // Execute a test case against this program using the given execution settings
+    // Returns a TestResult object containing execution results
+    public TestResult executeTestCase(TestCase testCase, ExecutionSettings settings)
+    {
+        return executeTestCase(testCase, settings, settings.getCaseTimeoutMillis(), new ExecutionControl());
+    }
+
+    // Execute a test case against this program, stopping the run after timeoutMillis (0 = no limit)
+    // Returns a TestResult object containing execution results (status TIMEOUT if the limit was hit)
+    // Additional: The run can be stopped early through control (see ExecutionControl.cancel()).
+    public TestResult executeTestCase(TestCase testCase, ExecutionSettings settings, long timeoutMillis,
+                                      ExecutionControl control)
+    {
+        return startTestCase(testCase, settings, timeoutMillis, control).join();
+    }
+
+    // Start a test case against this program, like executeTestCase() does
+    // Returns a future completed with the result once the program has finished
+    // Additional: Compiles on the calling thread if needed; the run itself is started as start() does,
+    // so in FORK_PER_CASE mode no thread waits while the program runs.
+    public CompletableFuture<TestResult> startTestCase(TestCase testCase, ExecutionSettings settings, long timeoutMillis,
+                                                       ExecutionControl control)
     {
         // Ensure program is compiled (only compiles once)
-        boolean compiled = ensureCompiled();
+        boolean compiled = ensureCompiled(settings);
         
-        String expectedOutput = testCase.getExpectedOutput();
-        String actualOutput = "";
-        String status;
+        // An expected output stored in a file is compared as a stream (String comparison only);
+        // the result keeps just its beginning for display
+        String type = testCase.getType();
+        File expectedOutputFile = testCase.getExpectedOutputFile();
+        boolean streamedComparison = expectedOutputFile != null && (type == null || type.isEmpty() || type.equals("String"));
+        String expectedOutput = expectedOutputFile != null ? testCase.getExpectedOutputPreview() : testCase.getExpectedOutput();
         
         if (!compiled)
         {
-            status = "COMPILE ERROR";
+            return CompletableFuture.completedFuture(new TestResult(name, testCase.getTitle(), "COMPILE ERROR", "",
+                expectedOutput, getCompileDiagnostics()));
+        }
+        
+        // Run the program with test case input
+        return start(testCase.getRunInput(), streamedComparison ? expectedOutputFile : null, settings, timeoutMillis, control)
+            .thenApply(outcome -> toTestResult(testCase, expectedOutput, outcome));
+    }
+
+    // Turns the outcome of running a test case into its result
+    private TestResult toTestResult(TestCase testCase, String expectedOutput, RunOutcome outcome)
+    {
+        String actualOutput = outcome.getOutput();
+        Integer exitCode = outcome.getExitCode();
+        Boolean matched = outcome.getExpectedOutputMatched();
+        String status;
+        
+        if (outcome.isOutputLimitExceeded() && !Boolean.TRUE.equals(matched))
+        {
+            status = "OUTPUT LIMIT EXCEEDED"; // Output is only a head/tail excerpt
+        }
+        else if (outcome.isTimedOut())
+        {
+            status = "TIMEOUT";
+        }
+        else if (outcome.getResourceLimitStatus() != null)
+        {
+            status = outcome.getResourceLimitStatus(); // Heap or CPU time limit (see ResourceLimits)
+        }
+        // Check for runtime errors (non-zero exit code)
+        else if (exitCode != null && exitCode != 0)
+        {
+            status = "RUNTIME ERROR";
         }
         else
         {
-            // Run the program with test case input
-            actualOutput = run(testCase.getInputData());
-            
-            // Check for runtime errors (non-zero exit code)
-            if (lastExitCode != null && lastExitCode != 0)
-            {
-                status = "RUNTIME ERROR";
-            }
-            else
-            {
-                // Compare outputs
-                boolean passed = compareOutputs(actualOutput, expectedOutput, testCase.getType());
-                status = passed ? "PASSED" : "FAILED";
-            }
+            // Compare outputs (already done while the program ran if the expected output is a file)
+            boolean passed = matched != null ? matched
+                : compareOutputs(actualOutput, testCase.getExpectedOutput(), testCase.getType());
+            status = passed ? "PASSED" : "FAILED";
         }
         
-        return new TestResult(name, testCase.getTitle(), status, actualOutput, expectedOutput);
+        return new TestResult(name, testCase.getTitle(), status, actualOutput, expectedOutput, getCompileDiagnostics(),
+            exitCode);
     }
 
     //Compares the actual output string against the expected output based on the specified data type.
-    //The comparison logic is crucial for robust test case validation.
+    //The comparison logic is crucial for robust test case validation.
     // Helper method to compare actual output with expected output
     // Handles different types (Boolean, Int, Double, String) appropriately
     private boolean compareOutputs(String actual, String expected, String type)
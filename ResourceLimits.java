@@ -0,0 +1,189 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/* Resource policy for each forked student process (and each BATCHED worker JVM), so a few memory- or
+* CPU-hungry submissions running in parallel can't push the grading box into swap or starve the other runs.
+* Every limit is opt-in: without one, a run gets the JVM's and the system's defaults as before.
+* Heap and thread stack sizes are passed to the student's JVM (-Xmx, -Xss); the JVM exits as soon as
+* the heap is exhausted. CPU time is an operating system limit set through prlimit where it is available
+* (Linux with util-linux).
+* A run that breaks a limit gets its own status (see getBreachStatus()) instead of RUNTIME ERROR.
+* There is no process limit: the operating system's one counts every process of the grading user, so
+* parallel runs (and anything else of that user) would eat into each other's share.*/
+public class ResourceLimits
+{
+    public static final String MEMORY_LIMIT_STATUS = "MEMORY LIMIT EXCEEDED";
+    public static final String CPU_TIME_LIMIT_STATUS = "CPU TIME LIMIT EXCEEDED";
+
+    private static final int HEAP_EXHAUSTED_EXIT_CODE = 3; // Exit code of -XX:+ExitOnOutOfMemoryError
+    private static final int CPU_LIMIT_EXIT_CODE = 128 + 24; // Killed by SIGXCPU when the CPU time limit is reached
+    private static final String HEAP_EXHAUSTED_MESSAGE = "Terminating due to java.lang.OutOfMemoryError";
+    private static final File PRLIMIT = findPrlimit(); // null where prlimit is not available
+    private static boolean prlimitWarningShown; // The missing prlimit is only reported once
+
+    private int heapMegabytes; // Maximum heap of the student's JVM (0 = JVM default)
+    private int stackKilobytes; // Stack size of each thread (0 = JVM default)
+    private int cpuSeconds; // CPU time the process may use, all threads together (0 = no limit)
+
+    // Constructor: no limits (each one is opt-in)
+    public ResourceLimits()
+    {
+        this.heapMegabytes = 0;
+        this.stackKilobytes = 0;
+        this.cpuSeconds = 0;
+    }
+
+    // Returns the maximum heap of the student's JVM in megabytes (0 = JVM default)
+    public int getHeapMegabytes() { return heapMegabytes; }
+
+    // Sets the maximum heap of the student's JVM in megabytes (0 or less = JVM default)
+    public void setHeapMegabytes(int heapMegabytes)
+    {
+        this.heapMegabytes = Math.max(0, heapMegabytes);
+    }
+
+    // Returns the stack size of each thread in kilobytes (0 = JVM default)
+    public int getStackKilobytes() { return stackKilobytes; }
+
+    // Sets the stack size of each thread in kilobytes (0 or less = JVM default)
+    // Additional: Deep recursion then fails with a StackOverflowError, reported as RUNTIME ERROR.
+    public void setStackKilobytes(int stackKilobytes)
+    {
+        this.stackKilobytes = Math.max(0, stackKilobytes);
+    }
+
+    // Returns the CPU time limit in seconds (0 = no limit)
+    public int getCpuSeconds() { return cpuSeconds; }
+
+    // Sets the CPU time limit in seconds (0 or less = no limit)
+    // Additional: Counts every thread of the JVM, including its own start-up work (about half a second).
+    public void setCpuSeconds(int cpuSeconds)
+    {
+        this.cpuSeconds = Math.max(0, cpuSeconds);
+    }
+
+    // Returns the options for the student's JVM (heap and stack size)
+    public List<String> getJvmOptions()
+    {
+        List<String> options = new ArrayList<>();
+        if (heapMegabytes > 0)
+        {
+            options.add("-Xmx" + heapMegabytes + "m");
+            options.add("-XX:+ExitOnOutOfMemoryError"); // Stop at once instead of limping on with a full heap
+        }
+        if (stackKilobytes > 0)
+        {
+            options.add("-Xss" + stackKilobytes + "k");
+        }
+        return options;
+    }
+
+    // Returns command, started through prlimit if a CPU time limit is set
+    // Additional: Without prlimit the command runs without that limit (reported once on stderr).
+    public List<String> applyTo(List<String> command)
+    {
+        return applyTo(command, 1);
+    }
+
+    // Returns command for a JVM that runs up to runs test cases one after another (a BATCHED worker)
+    // Additional: The CPU time limit is per process, so it is multiplied by the runs the worker may take.
+    public List<String> applyTo(List<String> command, int runs)
+    {
+        if (cpuSeconds == 0)
+        {
+            return command;
+        }
+        if (PRLIMIT == null)
+        {
+            warnPrlimitMissing();
+            return command;
+        }
+        List<String> limited = new ArrayList<>();
+        limited.add(PRLIMIT.getAbsolutePath());
+        // SIGXCPU at the soft limit (see getBreachStatus()); SIGKILL a second later in case the signal is ignored
+        long seconds = (long) cpuSeconds * Math.max(1, runs);
+        limited.add("--cpu=" + seconds + ":" + (seconds + 1));
+        limited.add("--");
+        limited.addAll(command);
+        return limited;
+    }
+
+    // Returns the status of the limit a finished run broke, or null if it broke none
+    // Additional: Only a SIGXCPU exit counts as the CPU time limit. A SIGKILL may come from anywhere
+    // (the grader, the OOM killer), so it stays a RUNTIME ERROR.
+    public String getBreachStatus(Integer exitCode, String output)
+    {
+        if (exitCode == null || exitCode == 0)
+        {
+            return null;
+        }
+        if (heapMegabytes > 0 && exitCode == HEAP_EXHAUSTED_EXIT_CODE && output.contains(HEAP_EXHAUSTED_MESSAGE))
+        {
+            return MEMORY_LIMIT_STATUS;
+        }
+        if (cpuSeconds > 0 && PRLIMIT != null && exitCode == CPU_LIMIT_EXIT_CODE)
+        {
+            return CPU_TIME_LIMIT_STATUS;
+        }
+        return null;
+    }
+
+    // Returns the status of the limit a run inside a worker JVM (see RunnerWorkerProcess) broke, or null if it broke none
+    // Additional: workerExitCode is set only if the worker itself died during the run (null while it still runs):
+    // System.exit() of the student program is trapped inside the worker, so only the JVM's own exits are seen.
+    public String getWorkerBreachStatus(Integer workerExitCode)
+    {
+        if (workerExitCode == null)
+        {
+            return null; // Still running: whatever the run broke was reported by the worker itself
+        }
+        if (heapMegabytes > 0 && workerExitCode == HEAP_EXHAUSTED_EXIT_CODE)
+        {
+            return MEMORY_LIMIT_STATUS; // The message went to the worker's stderr, which is not kept
+        }
+        if (cpuSeconds > 0 && PRLIMIT != null && workerExitCode == CPU_LIMIT_EXIT_CODE)
+        {
+            return CPU_TIME_LIMIT_STATUS;
+        }
+        return null;
+    }
+
+    // Returns the status a worker JVM reported for a run (see RunnerWorker), as a forked run with these limits gets it
+    // Additional: A worker reports any exhausted heap; without a heap limit, a forked run that runs out of heap
+    // is a RUNTIME ERROR, so the status is dropped then.
+    public String getWorkerReportedStatus(String status)
+    {
+        return MEMORY_LIMIT_STATUS.equals(status) && heapMegabytes == 0 ? null : status;
+    }
+
+    // Returns true if status is one of the resource limit statuses
+    public static boolean isBreachStatus(String status)
+    {
+        return status.equals(MEMORY_LIMIT_STATUS) || status.equals(CPU_TIME_LIMIT_STATUS);
+    }
+
+    // Looks for the prlimit tool in the usual places
+    private static File findPrlimit()
+    {
+        for (String path : new String[] { "/usr/bin/prlimit", "/bin/prlimit", "/usr/local/bin/prlimit" })
+        {
+            File file = new File(path);
+            if (file.canExecute())
+            {
+                return file;
+            }
+        }
+        return null;
+    }
+
+    // Reports (once) that the CPU time limit can't be applied
+    private static synchronized void warnPrlimitMissing()
+    {
+        if (!prlimitWarningShown)
+        {
+            prlimitWarningShown = true;
+            System.err.println("prlimit not found: the CPU time limit is not applied");
+        }
+    }
+}
@@ -0,0 +1,188 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/* Persistent store of test results, so unchanged (submission, test case) pairs are not run again.
+* Results are keyed by the submission's source hash and a hash of the test case's
+* input, expected output and comparison type. A test case whose content changes gets a
+* new key, so its stale results are simply never looked up again.
+* One properties file is kept per submission hash; changes are written by save().
+* It also keeps the submission's compiler messages, so restored results carry its diagnostics.*/
+public class ResultStore
+{
+    private File storeFolder; // Folder holding one <sourceHash>.properties file per submission
+    private Map<String, Properties> loaded; // Submission results read so far, by source hash
+    private Map<String, Boolean> changed; // Source hashes with results not yet saved
+    private Map<TestCase, String> testCaseKeys; // Key of every test case looked up so far (hashed once per run)
+    private Map<String, List<CompileDiagnostic>> compileDiagnostics; // Parsed compiler messages, by source hash
+
+    // Constructor: uses the given folder (created on first save)
+    public ResultStore(File storeFolder)
+    {
+        this.storeFolder = storeFolder;
+        this.loaded = new ConcurrentHashMap<>();
+        this.changed = new ConcurrentHashMap<>();
+        this.testCaseKeys = new ConcurrentHashMap<>();
+        this.compileDiagnostics = new ConcurrentHashMap<>();
+    }
+
+    // Computes the key of a test case: its input, expected output and comparison type
+    // Additional: The title is left out on purpose - renaming a test case doesn't make its results stale.
+    // Payloads stored in sidecar files are hashed as streams; the key is the same as for the same text inline.
+    public static String hashTestCase(TestCase testCase) throws IOException
+    {
+        ContentHash hash = new ContentHash();
+        File inputFile = testCase.getInputFile();
+        File expectedOutputFile = testCase.getExpectedOutputFile();
+        if (inputFile != null)
+        {
+            hash.add(inputFile);
+        }
+        else
+        {
+            hash.add(testCase.getInputData());
+        }
+        if (expectedOutputFile != null)
+        {
+            hash.add(expectedOutputFile);
+        }
+        else
+        {
+            hash.add(testCase.getExpectedOutput());
+        }
+        return hash.add(testCase.getType()).toHex();
+    }
+
+    // Returns the key of a test case, computed once per store (the store lives for one suite execution)
+    private String getTestCaseKey(TestCase testCase) throws IOException
+    {
+        String key = testCaseKeys.get(testCase);
+        if (key == null)
+        {
+            key = hashTestCase(testCase);
+            testCaseKeys.put(testCase, key);
+        }
+        return key;
+    }
+
+    // Returns the stored result of running testCase against program, or null if it has to be run
+    public TestResult lookup(Program program, TestCase testCase)
+    {
+        try
+        {
+            String sourceHash = program.getSourceHash();
+            Properties results = getResults(sourceHash);
+            String key = getTestCaseKey(testCase);
+            String status = results.getProperty(key + ".status");
+            if (status == null)
+            {
+                return null;
+            }
+            List<CompileDiagnostic> diagnostics = compileDiagnostics.computeIfAbsent(sourceHash,
+                hash -> CompileDiagnostic.parseAll(results.getProperty("compile.output", "")));
+            return new TestResult(program.getName(), testCase.getTitle(), status,
+                results.getProperty(key + ".output", ""), testCase.getExpectedOutputPreview(), diagnostics);
+        }
+        catch (IOException e)
+        {
+            return null; // Sources unreadable - just run it
+        }
+    }
+
+    // Remembers a fresh result for later runs
+    // Additional: Timeouts, output-limit and resource-limit results depend on machine load and settings,
+    // so they are always re-run. So are runs that did not finish with an exit code (e.g. 'java' could not be
+    // started, or a runner worker failed): they say nothing about the submission.
+    public void record(Program program, TestCase testCase, TestResult result)
+    {
+        String status = result.getStatus();
+        if (status.equals("TIMEOUT") || status.equals("OUTPUT LIMIT EXCEEDED") || ResourceLimits.isBreachStatus(status))
+        {
+            return;
+        }
+        if (!status.equals("COMPILE ERROR") && (result.getExitCode() == null
+            || (result.getActualOutput() != null && result.getActualOutput().startsWith("ERROR:"))))
+        {
+            return;
+        }
+        try
+        {
+            String sourceHash = program.getSourceHash();
+            Properties results = getResults(sourceHash);
+            String key = getTestCaseKey(testCase);
+            synchronized (results)
+            {
+                results.setProperty(key + ".status", status);
+                results.setProperty(key + ".output", result.getActualOutput() != null ? result.getActualOutput() : "");
+                CompileResult compileResult = program.getCompileResult();
+                if (compileResult != null)
+                {
+                    results.setProperty("compile.output", compileResult.getOutput());
+                }
+            }
+            changed.put(sourceHash, Boolean.TRUE);
+        }
+        catch (IOException e)
+        {
+            // Not cacheable - the result is still returned to the caller
+        }
+    }
+
+    // Writes all new results to disk
+    // Additional: Each file is written to a temporary file first and then moved over the old one.
+    public void save() throws IOException
+    {
+        Files.createDirectories(storeFolder.toPath());
+        for (String sourceHash : changed.keySet())
+        {
+            Properties results = loaded.get(sourceHash);
+            File file = getResultsFile(sourceHash);
+            File temp = new File(storeFolder, sourceHash + ".tmp-" + Thread.currentThread().getId());
+            synchronized (results)
+            {
+                try (OutputStream out = new FileOutputStream(temp))
+                {
+                    results.store(out, "Stored test results for one submission");
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            changed.remove(sourceHash);
+        }
+    }
+
+    // Returns the results of one submission, reading them from disk the first time
+    private Properties getResults(String sourceHash)
+    {
+        return loaded.computeIfAbsent(sourceHash, hash -> {
+            Properties results = new Properties();
+            File file = getResultsFile(hash);
+            if (file.isFile())
+            {
+                try (InputStream in = new FileInputStream(file))
+                {
+                    results.load(in);
+                }
+                catch (IOException e)
+                {
+                    results.clear(); // Damaged file - start over for this submission
+                }
+            }
+            return results;
+        });
+    }
+
+    // Returns the file holding the results of one submission
+    private File getResultsFile(String sourceHash)
+    {
+        return new File(storeFolder, sourceHash + ".properties");
+    }
+}
@@ -0,0 +1,116 @@
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Date;
+import java.util.List;
+
+// ResultsReport writes the plain-text results report (used by the results screen and BatchRunner)
+public class ResultsReport
+{
+    // Helper method to repeat a string (for compatibility with older Java versions)
+    private static String repeatString(String str, int count)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++)
+        {
+            sb.append(str);
+        }
+        return sb.toString();
+    }
+
+    // Writes a student's compiler messages below their results (nothing if the compile was clean)
+    private static void writeDiagnostics(PrintWriter writer, List<CompileDiagnostic> diagnostics)
+    {
+        if (diagnostics.isEmpty())
+        {
+            return;
+        }
+        writer.println("  Compiler messages:");
+        for (CompileDiagnostic diagnostic : diagnostics)
+        {
+            writer.println("    " + diagnostic.toDisplayString().replace("\n", "\n      "));
+        }
+    }
+
+    // Method to save test results to a file
+    // Formats results with student names, test cases, and status
+    // Additional: Each student's compiler messages (file, line, message) follow their results.
+    public static void save(List<TestResult> results, File file, String suiteTitle) throws IOException
+    {
+        save(results, file, suiteTitle, null);
+    }
+
+    // Method to save test results to a file, with the measured start-up saving of the suite's launch profile
+    // Additional: startup may be null (standard launch profile); the header then has no launch profile line.
+    public static void save(List<TestResult> results, File file, String suiteTitle, StartupMeasurement startup)
+        throws IOException
+    {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(file)))
+        {
+            // Write header
+            writer.println("Test Results for: " + suiteTitle);
+            writer.println("Generated: " + new Date());
+            if (startup != null)
+            {
+                writer.println("Launch profile: " + startup.getProfile().getDisplayName());
+                writer.println(startup.toDisplayString());
+            }
+            writer.println(repeatString("=", 80));
+            writer.println();
+            
+            // Group results by student
+            String currentStudent = null;
+            List<CompileDiagnostic> currentDiagnostics = List.of();
+            for (TestResult result : results)
+            {
+                String studentName = result.getStudentName();
+                
+                // Add divider when student changes
+                if (currentStudent != null && !currentStudent.equals(studentName))
+                {
+                    writeDiagnostics(writer, currentDiagnostics);
+                    writer.println(repeatString("-", 80));
+                }
+                
+                // Write result line
+                if (result.getStatus().startsWith("SKIPPED"))
+                {
+                    writer.println(studentName + " | " + result.getStatus());
+                }
+                else
+                {
+                    writer.println(studentName + " | " + result.getTestCaseTitle() + " | " + result.getStatus());
+                }
+                
+                currentStudent = studentName;
+                currentDiagnostics = result.getCompileDiagnostics(); // Same for every result of the student
+            }
+            writeDiagnostics(writer, currentDiagnostics);
+            
+            // Write summary
+            writer.println();
+            writer.println(repeatString("=", 80));
+            writer.println("Summary:");
+            int total = results.size();
+            long passed = results.stream().filter(r -> r.getStatus().equals("PASSED")).count();
+            long failed = results.stream().filter(r -> r.getStatus().equals("FAILED")).count();
+            long compileErrors = results.stream().filter(r -> r.getStatus().equals("COMPILE ERROR")).count();
+            long runtimeErrors = results.stream().filter(r -> r.getStatus().equals("RUNTIME ERROR")).count();
+            long timeouts = results.stream().filter(r -> r.getStatus().equals("TIMEOUT")).count();
+            long outputLimits = results.stream().filter(r -> r.getStatus().equals("OUTPUT LIMIT EXCEEDED")).count();
+            long resourceLimits = results.stream().filter(r -> ResourceLimits.isBreachStatus(r.getStatus())).count();
+            long skipped = results.stream().filter(r -> r.getStatus().startsWith("SKIPPED")).count();
+            
+            writer.println("Total Results: " + total);
+            writer.println("Passed: " + passed);
+            writer.println("Failed: " + failed);
+            writer.println("Compile Errors: " + compileErrors);
+            writer.println("Runtime Errors: " + runtimeErrors);
+            writer.println("Timeouts: " + timeouts);
+            writer.println("Output Limit Exceeded: " + outputLimits);
+            writer.println("Resource Limit Exceeded: " + resourceLimits);
+            writer.println("Skipped: " + skipped);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+// RunInput is the standard input of one program run: text held in memory, or a file streamed from disk
+// Additional: Large test case inputs stay in their file and are copied to the program a buffer at a time.
+public class RunInput
+{
+    private String text; // Input text (null if the input is a file)
+    private File file; // Input file (null if the input is text)
+
+    private RunInput(String text, File file)
+    {
+        this.text = text;
+        this.file = file;
+    }
+
+    // Input given as text (null is treated as no input)
+    public static RunInput ofText(String text)
+    {
+        return new RunInput(text != null ? text : "", null);
+    }
+
+    // Input read from a file when the program runs
+    public static RunInput ofFile(File file)
+    {
+        return new RunInput(null, file);
+    }
+
+    // Returns the input file, or null if the input is text
+    public File getFile() { return file; }
+
+    // Returns the input text as UTF-8 bytes (empty for file input)
+    public byte[] getTextBytes()
+    {
+        return text != null ? text.getBytes(StandardCharsets.UTF_8) : new byte[0];
+    }
+
+    // Opens the input for reading (the caller closes it)
+    public InputStream open() throws IOException
+    {
+        if (file != null)
+        {
+            return new BufferedInputStream(new FileInputStream(file));
+        }
+        return new ByteArrayInputStream(getTextBytes());
+    }
+}
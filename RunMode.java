@@ -0,0 +1,7 @@
+// RunMode selects how student programs are started for each test case
+public enum RunMode
+{
+    FORK_PER_CASE, // Start a fresh 'java' process for every test case (default)
+    WARM_POOL, // Reuse long-lived worker JVMs, loading each submission in its own class loader
+    BATCHED // Start one worker JVM per submission that runs all of its test cases, each in a fresh class loader
+}
@@ -0,0 +1,50 @@
+// RunOutcome holds everything observed from a single run of a student program
+// Additional: Returned by Program so parallel runs never share a "last exit code" field.
+public class RunOutcome
+{
+    private String output; // Combined stdout/stderr of the run
+    private Integer exitCode; // Exit code of the process, or null if it never finished
+    private boolean timedOut; // true if the run was stopped for exceeding its time limit
+    private boolean outputLimitExceeded; // true if the run printed more than could be kept (output is an excerpt)
+    private Boolean expectedOutputMatched; // Result of a streamed comparison with the expected output (null = not compared)
+    private String resourceLimitStatus; // Status of the resource limit the run broke (null = none, see ResourceLimits)
+
+    public RunOutcome(String output, Integer exitCode)
+    {
+        this(output, exitCode, false);
+    }
+
+    public RunOutcome(String output, Integer exitCode, boolean timedOut)
+    {
+        this(output, exitCode, timedOut, false);
+    }
+
+    public RunOutcome(String output, Integer exitCode, boolean timedOut, boolean outputLimitExceeded)
+    {
+        this(output, exitCode, timedOut, outputLimitExceeded, null);
+    }
+
+    public RunOutcome(String output, Integer exitCode, boolean timedOut, boolean outputLimitExceeded,
+                      Boolean expectedOutputMatched)
+    {
+        this(output, exitCode, timedOut, outputLimitExceeded, expectedOutputMatched, null);
+    }
+
+    public RunOutcome(String output, Integer exitCode, boolean timedOut, boolean outputLimitExceeded,
+                      Boolean expectedOutputMatched, String resourceLimitStatus)
+    {
+        this.output = output;
+        this.exitCode = exitCode;
+        this.timedOut = timedOut;
+        this.outputLimitExceeded = outputLimitExceeded;
+        this.expectedOutputMatched = expectedOutputMatched;
+        this.resourceLimitStatus = resourceLimitStatus;
+    }
+
+    public String getOutput() { return output; }
+    public Integer getExitCode() { return exitCode; }
+    public boolean isTimedOut() { return timedOut; }
+    public boolean isOutputLimitExceeded() { return outputLimitExceeded; }
+    public Boolean getExpectedOutputMatched() { return expectedOutputMatched; }
+    public String getResourceLimitStatus() { return resourceLimitStatus; }
+}
@@ -0,0 +1,439 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.Permission;
+import java.util.Arrays;
+import java.util.Set;
+
+/* Entry point of a long-lived worker JVM used by WarmRunnerPool and by BATCHED runs (see RunnerWorkerProcess).
+* The worker reads run requests from its stdin and answers on its stdout:
+*   request:  classpath (UTF), class name (UTF), output limit (long), input file (UTF, "" = none),
+*             input length (int), input bytes (used when there is no input file), expected output file (UTF, "" = none)
+*   response: output chunks (chunk length (int), chunk bytes) while the program runs, -1 (int),
+*             exit code (int), compared with the expected output file (boolean), output matched it (boolean),
+*             resource limit status (UTF, "" = none)
+* Every request loads the submission in a new class loader (so static state starts fresh),
+* points System.in/out/err at the request's data, calls main and reports the exit status. As the 'java'
+* launcher does, the run ends only when the threads the program started have ended too, or when one of
+* them calls System.exit.
+* Output is streamed as it is written, so the grader keeps it even if the worker dies during the run.
+* Like the forked run, a program is stopped once it writes far more than the output limit.
+* The worker stops when its stdin is closed, e.g. when the grading application exits.*/
+@SuppressWarnings("removal") // The security manager is the only way to intercept System.exit
+public class RunnerWorker
+{
+    private static final int UNCAUGHT_EXCEPTION_EXIT_CODE = 1; // Same exit code the 'java' launcher uses
+    public static final int MAX_CHUNK_BYTES = 65536; // Largest output chunk in a response
+    private static final long THREAD_POLL_MILLIS = 50; // How often a wait for the program's threads checks for an exit
+
+    // Main loop of the worker JVM
+    public static void main(String[] args) throws IOException
+    {
+        // Keep the real stdin/stdout for the protocol before they are redirected per request
+        DataInputStream requests = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        DataOutputStream responses = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        ExitTrap exitTrap = new ExitTrap();
+        System.setSecurityManager(exitTrap);
+        Thread.setDefaultUncaughtExceptionHandler(RunnerWorker::reportUncaught);
+
+        while (true)
+        {
+            String classPath;
+            String className;
+            long outputLimitBytes;
+            String inputPath;
+            byte[] input;
+            String expectedPath;
+            try
+            {
+                classPath = requests.readUTF();
+                className = requests.readUTF();
+                outputLimitBytes = requests.readLong();
+                inputPath = requests.readUTF();
+                input = new byte[requests.readInt()];
+                requests.readFully(input);
+                expectedPath = requests.readUTF();
+            }
+            catch (EOFException e)
+            {
+                return; // Pool closed our stdin - shut down
+            }
+
+            // Stop the program once it writes much more than is kept or could match (as ForkedRun does)
+            long expectedBytes = expectedPath.isEmpty() ? 0 : new File(expectedPath).length();
+            StreamedOutput output = new StreamedOutput(responses, Math.max(outputLimitBytes, 2 * expectedBytes));
+            ExpectedOutputMatcher matcher = null;
+            boolean compared = false;
+            boolean matched = false;
+            RunResult result;
+            try
+            {
+                if (!expectedPath.isEmpty())
+                {
+                    matcher = new ExpectedOutputMatcher(new FileInputStream(expectedPath));
+                    output.setMatcher(matcher);
+                }
+                InputStream stdin = inputPath.isEmpty() ? new ByteArrayInputStream(input)
+                    : new BufferedInputStream(new FileInputStream(inputPath));
+                try (stdin)
+                {
+                    result = runMain(classPath, className, stdin, output, exitTrap);
+                }
+                if (matcher != null)
+                {
+                    matched = matcher.matches();
+                    compared = true;
+                }
+            }
+            catch (IOException e)
+            {   // Input or expected output file could not be read - report it like a failed launch
+                output.write(("Error: " + e.getMessage() + System.lineSeparator()).getBytes());
+                result = new RunResult(UNCAUGHT_EXCEPTION_EXIT_CODE, "");
+            }
+            finally
+            {
+                if (matcher != null)
+                {
+                    matcher.close();
+                }
+            }
+
+            output.close(); // Threads the program left running can't write into the next response
+            responses.writeInt(-1);
+            responses.writeInt(result.exitCode);
+            responses.writeBoolean(compared);
+            responses.writeBoolean(matched);
+            responses.writeUTF(result.limitStatus);
+            responses.flush();
+        }
+    }
+
+    // Loads the class in a fresh class loader and runs its main method with redirected streams
+    // Returns the exit code the program would have produced as a separate process, and the resource limit it broke
+    // Additional: Running out of heap in main is reported as MEMORY LIMIT EXCEEDED; the class loader is dropped
+    // afterwards, so the worker gets the memory back for the next run.
+    private static RunResult runMain(String classPath, String className, InputStream input, StreamedOutput output,
+                                     ExitTrap exitTrap)
+    {
+        InputStream originalIn = System.in;
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        PrintStream capture = new PrintStream(output, true); // stdout and stderr merged, like the forked run
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] { new File(classPath).toURI().toURL() },
+                ClassLoader.getPlatformClassLoader()))
+        {
+            System.setIn(input);
+            System.setOut(capture);
+            System.setErr(capture);
+
+            Class<?> mainClass = Class.forName(className, true, loader);
+            Method main = mainClass.getMethod("main", String[].class);
+            main.setAccessible(true); // The launcher also accepts main in a non-public class
+
+            Set<Thread> threadsBefore = Thread.getAllStackTraces().keySet();
+            exitTrap.setTrapping(true);
+            try
+            {
+                main.invoke(null, (Object) new String[0]);
+            }
+            catch (InvocationTargetException e)
+            {
+                Throwable cause = e.getCause();
+                if (cause instanceof ExitException)
+                {
+                    return new RunResult(((ExitException) cause).getStatus(), ""); // Program called System.exit
+                }
+                if (output.isStopped())
+                {
+                    return new RunResult(UNCAUGHT_EXCEPTION_EXIT_CODE, ""); // Stopped for its output; nothing more is kept
+                }
+                trimWorkerFrames(cause);
+                capture.print("Exception in thread \"main\" ");
+                cause.printStackTrace(capture);
+                awaitProgramThreads(threadsBefore, exitTrap, output);
+                boolean heapExhausted = cause instanceof OutOfMemoryError
+                    && !String.valueOf(cause.getMessage()).contains("native thread"); // Not the heap: too many threads
+                return new RunResult(exitTrap.getExitStatus(UNCAUGHT_EXCEPTION_EXIT_CODE),
+                    heapExhausted ? ResourceLimits.MEMORY_LIMIT_STATUS : "");
+            }
+            awaitProgramThreads(threadsBefore, exitTrap, output);
+            return new RunResult(exitTrap.getExitStatus(0), "");
+        }
+        catch (ExitException e)
+        {
+            return new RunResult(e.getStatus(), ""); // System.exit called from a static initializer
+        }
+        catch (Throwable e)
+        {   // Class not found, no main method, linkage errors, ...
+            if (!output.isStopped())
+            {
+                capture.println("Error: Could not run " + className + ": " + e);
+            }
+            return new RunResult(UNCAUGHT_EXCEPTION_EXIT_CODE, "");
+        }
+        finally
+        {
+            exitTrap.setTrapping(false);
+            capture.flush();
+            System.setIn(originalIn);
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+    }
+
+    // Waits until every non-daemon thread started by the program has ended, as the JVM does before it exits
+    // Additional: Stops waiting once a thread called System.exit or the output limit was reached, since a
+    // forked run would be over then. A thread that never ends is left to the grader's time limit, which
+    // kills the worker.
+    private static void awaitProgramThreads(Set<Thread> threadsBefore, ExitTrap exitTrap, StreamedOutput output)
+    {
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            if (thread.isDaemon() || threadsBefore.contains(thread) || thread == Thread.currentThread())
+            {
+                continue;
+            }
+            try
+            {
+                while (thread.isAlive() && !exitTrap.hasExited() && !output.isStopped())
+                {
+                    thread.join(THREAD_POLL_MILLIS);
+                }
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        if (!exitTrap.hasExited() && !output.isStopped() && hasNewProgramThreads(threadsBefore))
+        {
+            awaitProgramThreads(threadsBefore, exitTrap, output); // The threads started further threads
+        }
+    }
+
+    // Returns true if a non-daemon thread started by the program is still running
+    private static boolean hasNewProgramThreads(Set<Thread> threadsBefore)
+    {
+        for (Thread thread : Thread.getAllStackTraces().keySet())
+        {
+            if (!thread.isDaemon() && !threadsBefore.contains(thread) && thread != Thread.currentThread())
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Prints an exception nobody caught in a program's thread, as the JVM's default handler does
+    // Additional: A trapped System.exit and the output limit stop end the thread silently; a forked run
+    // would simply have ended there.
+    private static void reportUncaught(Thread thread, Throwable error)
+    {
+        if (error instanceof ExitException || error instanceof OutputLimitStop)
+        {
+            return;
+        }
+        System.err.print("Exception in thread \"" + thread.getName() + "\" ");
+        error.printStackTrace(System.err);
+    }
+
+    // Removes the reflection and worker frames below the student's main method from a stack trace
+    // Additional: Keeps the trace identical to the one printed by a forked 'java' process.
+    private static void trimWorkerFrames(Throwable error)
+    {
+        StackTraceElement[] frames = error.getStackTrace();
+        int keep = frames.length;
+        for (int i = 0; i < frames.length; i++)
+        {
+            String frameClass = frames[i].getClassName();
+            if (frameClass.startsWith("jdk.internal.reflect.") || frameClass.startsWith("java.lang.reflect.")
+                || frameClass.equals(RunnerWorker.class.getName()))
+            {
+                keep = i;
+                break;
+            }
+        }
+        error.setStackTrace(Arrays.copyOf(frames, keep));
+    }
+
+    // Exit code and broken resource limit ("" = none) of one run
+    private static class RunResult
+    {
+        final int exitCode;
+        final String limitStatus;
+
+        RunResult(int exitCode, String limitStatus)
+        {
+            this.exitCode = exitCode;
+            this.limitStatus = limitStatus;
+        }
+    }
+
+    // Program output, sent to the grader in chunks as it is written (stdout and stderr merged)
+    // Additional: Past stopBytes every write throws OutputLimitStop, which ends the program like the forked
+    // run's kill; the bytes up to there are still sent, so the grader reports OUTPUT LIMIT EXCEEDED with an excerpt.
+    private static class StreamedOutput extends OutputStream
+    {
+        private final DataOutputStream responses;
+        private final long stopBytes;
+        private ExpectedOutputMatcher matcher; // Also sees every byte (null = no comparison)
+        private long totalBytes;
+        private boolean stopped; // Limit reached: the program is being stopped
+        private boolean closed; // Run over: later writes (from threads left running) are dropped
+
+        StreamedOutput(DataOutputStream responses, long stopBytes)
+        {
+            this.responses = responses;
+            this.stopBytes = stopBytes;
+        }
+
+        synchronized void setMatcher(ExpectedOutputMatcher matcher) { this.matcher = matcher; }
+
+        synchronized boolean isStopped() { return stopped; }
+
+        @Override
+        public synchronized void write(int b) throws IOException
+        {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public synchronized void write(byte[] data, int offset, int length) throws IOException
+        {
+            if (closed)
+            {
+                return;
+            }
+            if (stopped)
+            {
+                throw new OutputLimitStop();
+            }
+            totalBytes += length;
+            if (matcher != null)
+            {
+                matcher.write(data, offset, length);
+            }
+            while (length > 0)
+            {
+                int chunk = Math.min(length, MAX_CHUNK_BYTES);
+                responses.writeInt(chunk);
+                responses.write(data, offset, chunk);
+                offset += chunk;
+                length -= chunk;
+            }
+            if (totalBytes > stopBytes)
+            {
+                stopped = true;
+                throw new OutputLimitStop();
+            }
+        }
+
+        @Override
+        public synchronized void flush() throws IOException
+        {
+            if (!closed)
+            {
+                responses.flush(); // The grader keeps what it received if the worker dies
+            }
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            closed = true;
+        }
+    }
+
+    // Thrown into a program that writes past the output limit; an Error, so PrintStream passes it on
+    private static class OutputLimitStop extends Error
+    {
+        private static final long serialVersionUID = 1L;
+
+        OutputLimitStop()
+        {
+            super("Output limit exceeded", null, false, false);
+        }
+    }
+
+    // Thrown in place of exiting the JVM when a student program calls System.exit
+    // Additional: An Error, so the program's own catch (Exception e) blocks can't swallow it and keep running.
+    private static class ExitException extends Error
+    {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ExitException(int status)
+        {
+            super("System.exit(" + status + ")");
+            this.status = status;
+        }
+
+        int getStatus() { return status; }
+    }
+
+    // Security manager that only blocks System.exit while student code is running
+    // Additional: Remembers the status of the first System.exit of a run, from whichever thread called it.
+    private static class ExitTrap extends SecurityManager
+    {
+        private volatile boolean trapping;
+        private volatile Integer exitStatus; // Status of the first System.exit of the run (null = none yet)
+
+        // Starts or ends trapping; starting forgets the exit of the previous run
+        void setTrapping(boolean trapping)
+        {
+            if (trapping)
+            {
+                exitStatus = null;
+            }
+            this.trapping = trapping;
+        }
+
+        boolean hasExited() { return exitStatus != null; }
+
+        // Returns the status the program exited with, or defaultStatus if it did not call System.exit
+        int getExitStatus(int defaultStatus)
+        {
+            Integer status = exitStatus;
+            return status != null ? status : defaultStatus;
+        }
+
+        @Override
+        public void checkExit(int status)
+        {
+            if (trapping)
+            {
+                synchronized (this)
+                {
+                    if (exitStatus == null)
+                    {
+                        exitStatus = status;
+                    }
+                }
+                throw new ExitException(status);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm) { } // Allow everything else
+
+        @Override
+        public void checkPermission(Permission perm, Object context) { }
+    }
+}
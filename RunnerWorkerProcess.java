@@ -0,0 +1,140 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* One running worker JVM (see RunnerWorker) and its request/response streams.
+* WarmRunnerPool shares such workers between all submissions; BATCHED runs give each submission
+* its own worker, which runs that submission's test cases one after another.
+* A worker that breaks during a run (killed for its time limit, cancelled, or halted by the student program)
+* is stopped and reports isBroken(); its owner then starts a new one for the next run.*/
+public class RunnerWorkerProcess
+{
+    private final Process process;
+    private final DataOutputStream requests;
+    private final DataInputStream responses;
+    private volatile boolean broken; // true once a run failed; the worker is stopped then
+
+    private RunnerWorkerProcess(Process process)
+    {
+        this.process = process;
+        this.requests = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.responses = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    // Starts a worker JVM; command starts the JVM and ends with its own options (classpath and main class are added)
+    // Additional: The worker's stderr is dropped - student output is captured inside the worker.
+    public static RunnerWorkerProcess start(List<String> command) throws IOException
+    {
+        List<String> cmd = new ArrayList<>(command);
+        cmd.add("-Djava.security.manager=allow"); // RunnerWorker traps System.exit with a security manager
+        cmd.add("-XX:+DisplayVMOutputToStderr"); // JVM messages (e.g. of -XX:+ExitOnOutOfMemoryError) stay off the protocol
+        cmd.add("-cp");
+        cmd.add(WarmRunnerPool.getGraderClassPath());
+        cmd.add(RunnerWorker.class.getName());
+
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        return new RunnerWorkerProcess(pb.start());
+    }
+
+    // Returns the worker's process
+    public Process getProcess() { return process; }
+
+    // Returns true if the worker can take another run
+    public boolean isUsable() { return !broken && process.isAlive(); }
+
+    // Returns true if a run failed and the worker was stopped
+    public boolean isBroken() { return broken; }
+
+    // Run the main method of className (found in classPathDir) with the given input
+    // Returns the combined output and exit code, like a forked 'java' process would
+    // Additional: If the run takes longer than timeoutMillis (0 = no limit) the worker is killed (and broken).
+    // At most outputLimitBytes of output are kept (head and tail); the worker stops a program that writes much more.
+    // Cancelling control kills the worker mid-run. An input file is read by the worker itself, and so is
+    // expectedOutputFile (if set) to compare the output with it. Output received before the worker died is kept.
+    public RunOutcome run(File classPathDir, String className, RunInput input, File expectedOutputFile, long timeoutMillis,
+                          long outputLimitBytes, ExecutionControl control)
+    {
+        control.register(process);
+        ProcessWatchdog watchdog = ProcessWatchdog.start(process, timeoutMillis);
+        OutputCapture output = new OutputCapture(outputLimitBytes);
+        try
+        {
+            byte[] inputBytes = input.getTextBytes();
+            requests.writeUTF(classPathDir.getAbsolutePath());
+            requests.writeUTF(className);
+            requests.writeLong(outputLimitBytes);
+            requests.writeUTF(input.getFile() != null ? input.getFile().getAbsolutePath() : "");
+            requests.writeInt(inputBytes.length);
+            requests.write(inputBytes);
+            requests.writeUTF(expectedOutputFile != null ? expectedOutputFile.getAbsolutePath() : "");
+            requests.flush();
+
+            // Output chunks until -1, then the run's result
+            byte[] chunk = new byte[RunnerWorker.MAX_CHUNK_BYTES];
+            int length;
+            while ((length = responses.readInt()) >= 0)
+            {
+                if (length > chunk.length)
+                {
+                    throw new IOException("Unexpected output chunk of length " + length);
+                }
+                responses.readFully(chunk, 0, length);
+                output.write(chunk, 0, length);
+            }
+            int exitCode = responses.readInt();
+            boolean compared = responses.readBoolean();
+            boolean matched = responses.readBoolean();
+            String limitStatus = responses.readUTF();
+            watchdog.cancel();
+            return new RunOutcome(output.toText(), exitCode, false, output.isLimitExceeded(),
+                compared ? Boolean.valueOf(matched) : null, limitStatus.isEmpty() ? null : limitStatus);
+        }
+        catch (IOException e)
+        {   // Worker died during the run, or was killed by the watchdog
+            boolean timedOut = watchdog.cancel();
+            Integer exitCode = timedOut ? null : awaitExitCode(); // Before stop(), so it is the worker's own exit
+            stop();
+            if (timedOut)
+            {
+                return new RunOutcome(output.toText(), null, true, output.isLimitExceeded());
+            }
+            if (exitCode == null)
+            {
+                return new RunOutcome("ERROR: Runner worker failed: " + e.getMessage(), null);
+            }
+            return new RunOutcome(output.toText(), exitCode, false, output.isLimitExceeded()); // e.g. Runtime.halt()
+        }
+        finally
+        {
+            control.unregister(process);
+        }
+    }
+
+    // Waits briefly for a failed worker to exit and returns its exit code (null if it has not exited)
+    private Integer awaitExitCode()
+    {
+        try
+        {
+            return process.waitFor(1, TimeUnit.SECONDS) ? Integer.valueOf(process.exitValue()) : null;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Stops the worker (with anything a student program started from it)
+    public void stop()
+    {
+        broken = true;
+        ProcessWatchdog.destroyTree(process);
+    }
+}
@@ -0,0 +1,71 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/* Scratch folder of one suite execution: compiled classes of every submission go into their own
+* subfolder here instead of next to the students' sources, so parallel or repeated runs over the same
+* submissions archive never share (or pollute) class files. close() deletes the whole folder.
+* The folder is created under the system temp folder, a chosen folder, or tmpfs (see ExecutionSettings).
+* Programs compiled outside a suite execution use the shared scratch space, deleted when the application exits.*/
+public class ScratchSpace
+{
+    private static final Pattern UNSAFE_NAME_CHARS = Pattern.compile("[^a-zA-Z0-9._-]");
+    private static ScratchSpace shared; // Scratch space for programs compiled outside a suite execution
+
+    private File folder; // grader-run-* folder of this execution
+    private AtomicInteger nextIndex; // Numbers the submission folders, so equal names never share one
+
+    // Constructor: use create() instead
+    private ScratchSpace(File folder)
+    {
+        this.folder = folder;
+        this.nextIndex = new AtomicInteger();
+    }
+
+    // Returns the scratch space shared by programs compiled outside a suite execution
+    // Additional: Created in the system temp folder on first use and deleted when the application exits.
+    public static synchronized ScratchSpace getShared() throws IOException
+    {
+        if (shared == null)
+        {
+            shared = create(new File(System.getProperty("java.io.tmpdir")));
+            ScratchSpace space = shared;
+            Runtime.getRuntime().addShutdownHook(new Thread(space::close, "scratch-cleanup"));
+        }
+        return shared;
+    }
+
+    // Creates a new, empty scratch folder under baseFolder
+    public static ScratchSpace create(File baseFolder) throws IOException
+    {
+        Files.createDirectories(baseFolder.toPath());
+        return new ScratchSpace(Files.createTempDirectory(baseFolder.toPath(), "grader-run-").toFile());
+    }
+
+    // Returns the scratch folder itself
+    public File getFolder() { return folder; }
+
+    // Returns a new (not yet created) class output folder for a submission
+    // Additional: Numbered, so submissions whose names only differ in characters unsafe for file names stay apart.
+    public File newClassesFolder(Program program)
+    {
+        String name = UNSAFE_NAME_CHARS.matcher(program.getName()).replaceAll("_");
+        return new File(folder, nextIndex.getAndIncrement() + "-" + name);
+    }
+
+    // Deletes the scratch folder and everything compiled into it
+    // Additional: Failures are only reported - a left-over folder in the temp folder is harmless.
+    public void close()
+    {
+        try
+        {
+            CompileCache.deleteRecursively(folder.toPath());
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not delete scratch folder " + folder + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,193 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/* Class data sharing (CDS) archive of the JDK classes student programs commonly use, for the FAST_STARTUP
+* launch profile. A student JVM maps the archive instead of loading and verifying those classes again.
+* The archive is created once per JVM version in the cache folder (or the shared scratch folder), by the
+* grader's own JDK, which also starts every student JVM: main() below is a warm-up program doing what student
+* programs usually do, the classes it loads are listed, and the JVM dumps them into the archive. Only JDK
+* classes go into it, so it fits any student classpath.
+* Creation failures are reported once; runs then use the JDK's default archive.*/
+public class StartupArchive
+{
+    private static final long TOOL_TIMEOUT_SECONDS = 120; // Limit for listing classes and for dumping the archive
+    private static final String WARM_UP_INPUT = "3 4\n2.5 hello\nThe quick brown fox\n";
+
+    private static Map<File, File> archives = new HashMap<>(); // Archive folder -> archive (null = creation failed)
+
+    // Returns the JVM options of the settings' launch profile, creating the archive first if the profile uses one
+    public static List<String> getJvmOptions(ExecutionSettings settings)
+    {
+        LaunchProfile profile = settings.getLaunchProfile();
+        return profile.getJvmOptions(profile == LaunchProfile.FAST_STARTUP ? getArchive(settings) : null);
+    }
+
+    // Returns the archive for the settings' cache folder, creating it on first use (null if it could not be created)
+    // Additional: Synchronized, so parallel runs wait for one creation instead of each starting their own.
+    public static synchronized File getArchive(ExecutionSettings settings)
+    {
+        File folder;
+        try
+        {
+            folder = settings.getCacheFolder() != null
+                ? new File(settings.getCacheFolder(), "startup")
+                : ScratchSpace.getShared().getFolder();
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+        if (archives.containsKey(folder))
+        {
+            return archives.get(folder);
+        }
+
+        File archive = new File(folder, "jdk-" + System.getProperty("java.vm.version").replaceAll("[^a-zA-Z0-9._-]", "_")
+            + ".jsa");
+        if (!archive.isFile())
+        {
+            try
+            {
+                create(archive);
+            }
+            catch (IOException e)
+            {
+                System.err.println("Could not create start-up archive " + archive + ": " + e.getMessage());
+                archive = null;
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                return null; // Not remembered: the next run tries again
+            }
+        }
+        archives.put(folder, archive);
+        return archive;
+    }
+
+    // Lists the classes the warm-up program loads, then dumps them into the archive
+    // Additional: Written under a temporary name and moved into place, so a half-written archive is never used.
+    private static void create(File archive) throws IOException, InterruptedException
+    {
+        Files.createDirectories(archive.getParentFile().toPath());
+        File classList = File.createTempFile("classes-", ".lst", archive.getParentFile());
+        File staging = new File(archive.getParentFile(), archive.getName() + ".tmp");
+        try
+        {
+            runTool(List.of(WarmRunnerPool.getJavaCommand(), "-Xshare:off", "-XX:DumpLoadedClassList=" + classList.getAbsolutePath(),
+                "-cp", WarmRunnerPool.getGraderClassPath(), StartupArchive.class.getName()), WARM_UP_INPUT);
+            removeGraderClasses(classList);
+            staging.delete();
+            runTool(List.of(WarmRunnerPool.getJavaCommand(), "-Xshare:dump", "-XX:SharedClassListFile=" + classList.getAbsolutePath(),
+                "-XX:SharedArchiveFile=" + staging.getAbsolutePath()), "");
+            if (!staging.isFile())
+            {
+                throw new IOException("The JVM wrote no archive");
+            }
+            Files.move(staging.toPath(), archive.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            classList.delete();
+            staging.delete();
+        }
+    }
+
+    // Runs a JVM with the given input and waits for it to succeed
+    private static void runTool(List<String> command, String input) throws IOException, InterruptedException
+    {
+        ProcessBuilder pb = new ProcessBuilder(command);
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD); // Only the files it writes matter
+        Process process = pb.start();
+        try (OutputStream stdin = process.getOutputStream())
+        {
+            stdin.write(input.getBytes(StandardCharsets.UTF_8));
+        }
+        if (!process.waitFor(TOOL_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+        {
+            ProcessWatchdog.destroyTree(process);
+            throw new IOException("'" + command.get(1) + "' did not finish in time");
+        }
+        if (process.exitValue() != 0)
+        {
+            throw new IOException("'" + command.get(1) + "' failed with exit code " + process.exitValue());
+        }
+    }
+
+    // Drops the warm-up program itself from the class list: the archive holds JDK classes only
+    // Additional: Lambda proxy entries ("@lambda-proxy <class> ...") name the class that defines the lambda.
+    private static void removeGraderClasses(File classList) throws IOException
+    {
+        String self = StartupArchive.class.getName();
+        List<String> kept = new ArrayList<>();
+        for (String line : Files.readAllLines(classList.toPath(), StandardCharsets.UTF_8))
+        {
+            String[] parts = line.split(" ");
+            String name = parts[0].equals("@lambda-proxy") && parts.length > 1 ? parts[1] : parts[0];
+            if (!name.equals(self) && !name.startsWith(self + "$"))
+            {
+                kept.add(line);
+            }
+        }
+        Files.write(classList.toPath(), kept, StandardCharsets.UTF_8);
+    }
+
+    // Warm-up program: reads input and prints results the ways student programs usually do
+    // Additional: Given "probe", it only echoes one line (the trivial program timed by StartupMeasurement).
+    public static void main(String[] args) throws IOException
+    {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(System.in));
+        if (args.length > 0 && args[0].equals("probe"))
+        {
+            System.out.println(reader.readLine());
+            return;
+        }
+        List<String> lines = reader.lines().collect(Collectors.toList());
+        Scanner scanner = new Scanner(String.join("\n", lines));
+        int a = scanner.nextInt();
+        int b = scanner.nextInt();
+        double d = scanner.nextDouble();
+        String word = scanner.next();
+        scanner.nextLine();
+        String sentence = scanner.hasNextLine() ? scanner.nextLine() : "";
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String token : sentence.split("\\s+"))
+        {
+            counts.merge(token.toLowerCase(), 1, Integer::sum);
+        }
+        Set<Character> letters = new HashSet<>();
+        StringBuilder reversed = new StringBuilder(word).reverse();
+        for (char c : sentence.toCharArray())
+        {
+            letters.add(Character.toUpperCase(c));
+        }
+        int[] numbers = { b, a, Integer.parseInt("42"), (int) Math.round(Math.sqrt(Double.parseDouble("16"))) };
+        Arrays.sort(numbers);
+
+        System.out.println(a + b);
+        System.out.printf("%.2f %s%n", d * Math.PI, reversed);
+        System.out.println(String.format("%5d|%-8s|%b", a * b, word.trim().toUpperCase(), letters.contains('Q')));
+        System.out.println(new TreeMap<>(counts) + " " + Arrays.toString(numbers) + " " + String.valueOf(lines.size()));
+        System.out.println(lines.stream().mapToInt(String::length).sum() + " " + Math.max(Long.MAX_VALUE, 1L) % 7);
+    }
+}
@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// StartupMeasurement is the measured JVM start-up time of a trivial program, standard vs. a launch profile
+// Additional: Shown in the results report, so the saving of a suite's launch profile can be checked on the grading box.
+public class StartupMeasurement
+{
+    private static final int ROUNDS = 5; // Launches per profile; the median is kept
+    private static final long LAUNCH_TIMEOUT_SECONDS = 30;
+
+    private static Map<List<String>, StartupMeasurement> measurements = new HashMap<>(); // Profile JVM options -> result
+
+    private LaunchProfile profile; // The profile compared with STANDARD
+    private long standardMillis; // Median start-up time with the standard flags
+    private long profileMillis; // Median start-up time with the profile
+
+    private StartupMeasurement(LaunchProfile profile, long standardMillis, long profileMillis)
+    {
+        this.profile = profile;
+        this.standardMillis = standardMillis;
+        this.profileMillis = profileMillis;
+    }
+
+    // Times a trivial program (read one line, print it) with the standard flags and with the settings' profile
+    // Returns null if a launch failed
+    // Additional: Launches alternate between the two, so both see the same machine load. Each profile (and
+    // start-up archive) is measured once while the grader runs; later calls return that measurement.
+    public static synchronized StartupMeasurement measure(ExecutionSettings settings)
+    {
+        List<String> profileOptions = StartupArchive.getJvmOptions(settings);
+        if (measurements.containsKey(profileOptions))
+        {
+            return measurements.get(profileOptions);
+        }
+        List<String> standardOptions = LaunchProfile.STANDARD.getJvmOptions(null);
+        List<Long> standardTimes = new ArrayList<>();
+        List<Long> profileTimes = new ArrayList<>();
+        try
+        {
+            for (int i = 0; i < ROUNDS; i++)
+            {
+                standardTimes.add(timeLaunch(standardOptions));
+                profileTimes.add(timeLaunch(profileOptions));
+            }
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not measure JVM start-up: " + e.getMessage());
+            return null;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        StartupMeasurement measurement = new StartupMeasurement(settings.getLaunchProfile(), median(standardTimes),
+            median(profileTimes));
+        measurements.put(profileOptions, measurement);
+        return measurement;
+    }
+
+    public LaunchProfile getProfile() { return profile; }
+
+    // Returns the start-up times and the saving per run as a report line
+    public String toDisplayString()
+    {
+        long saved = standardMillis - profileMillis;
+        long percent = standardMillis > 0 ? Math.round(100.0 * saved / standardMillis) : 0;
+        return "JVM start-up per run: " + standardMillis + " ms standard, " + profileMillis + " ms with this profile ("
+            + saved + " ms saved, " + percent + "%)";
+    }
+
+    // Starts the probe program with the given JVM options and returns how long it took until it exited
+    private static long timeLaunch(List<String> jvmOptions) throws IOException, InterruptedException
+    {
+        List<String> cmd = new ArrayList<>();
+        cmd.add(WarmRunnerPool.getJavaCommand());
+        cmd.addAll(jvmOptions);
+        cmd.add("-cp");
+        cmd.add(WarmRunnerPool.getGraderClassPath());
+        cmd.add(StartupArchive.class.getName());
+        cmd.add("probe");
+
+        ProcessBuilder pb = new ProcessBuilder(cmd);
+        pb.redirectErrorStream(true);
+        pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+        long start = System.nanoTime();
+        Process process = pb.start();
+        try (OutputStream stdin = process.getOutputStream())
+        {
+            stdin.write("probe\n".getBytes(StandardCharsets.UTF_8));
+        }
+        if (!process.waitFor(LAUNCH_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+        {
+            ProcessWatchdog.destroyTree(process);
+            throw new IOException("The probe program did not finish in time");
+        }
+        if (process.exitValue() != 0)
+        {
+            throw new IOException("The probe program failed with exit code " + process.exitValue());
+        }
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    // Returns the middle value of the times
+    private static long median(List<Long> times)
+    {
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
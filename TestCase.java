@@ -1,18 +1,42 @@
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
 
+/* A test case: input for the student program, the output it should print, and how to compare them.
+* Saved as <title>.testcase in the test-cases folder. Single-line input and expected output use the
+* original four-line format (title, type, input, expected output). Anything else uses format v2:
+*   #testcase v2
+*   title
+*   type
+*   input inline <length>       followed by exactly <length> characters and a line break, or
+*   input file <name>           the input is stored in the sidecar file <name> next to the .testcase file
+*   expected inline <length>    (or: expected file <name>), same as for the input
+* Payloads larger than INLINE_PAYLOAD_LIMIT characters go to sidecar files (<title>.input / <title>.expected),
+* which are streamed to the program and compared as a stream instead of being loaded into memory.*/
 public class TestCase
 {
+    private static final Pattern UNSAFE_FILENAME_CHARS = Pattern.compile("[^a-zA-Z0-9._-]"); // Compiled once, not per title
+    private static final String FORMAT_V2_HEADER = "#testcase v2"; // First line of a format v2 file
+    private static final int INLINE_PAYLOAD_LIMIT = 64 * 1024; // Larger input/expected output is saved in a sidecar file
+    private static final int PREVIEW_CHARS = 64 * 1024; // Expected output shown in results when it is stored in a file
     private String title; // Title of the test case
     private String inputData; // Input data to provide to the program
     private String expectedOutput; // Expected output to compare against program output
     private String type; // Type/category of test case
+    private String filename; // File name derived from the title (kept so lookups don't sanitize again)
+    private volatile Callable<TestCase> payloadLoader; // Reads input/expected output on first use (null = loaded)
+    private File inputFile; // Sidecar file holding the input (null = inputData holds it)
+    private File expectedOutputFile; // Sidecar file holding the expected output (null = expectedOutput holds it)
 
     // Constructor: Initializes all fields of the test case
     // Additional: Used to create new test cases programmatically or from files
     public TestCase(String title, String inputData, String expectedOutput, String type)
     {
         this.title = title;
+        this.filename = sanitizeFilename(title) + ".testcase";
         this.inputData = inputData;
         this.expectedOutput = expectedOutput;
         this.type = type;
@@ -20,28 +44,105 @@ public class TestCase
 
     // Getter and setter methods for all fields
     public String getTitle() { return title; }
-    public void setTitle(String title) { this.title = title; }
+    public void setTitle(String title)
+    {
+        this.title = title;
+        this.filename = sanitizeFilename(title) + ".testcase";
+    }
+
+    // Input and expected output of a header-only test case (see createLazy) are read on first use
+    // Additional: Payloads stored in a sidecar file are read from it on every call - prefer getRunInput(),
+    // getExpectedOutputFile() and getExpectedOutputPreview() where the full text is not needed.
+    public String getInputData()
+    {
+        ensurePayloadLoaded();
+        return inputFile != null ? readSidecar(inputFile) : inputData;
+    }
+    public void setInputData(String inputData)
+    {
+        ensurePayloadLoaded();
+        this.inputData = inputData;
+        this.inputFile = null;
+    }
+
+    public String getExpectedOutput()
+    {
+        ensurePayloadLoaded();
+        return expectedOutputFile != null ? readSidecar(expectedOutputFile) : expectedOutput;
+    }
+    public void setExpectedOutput(String expectedOutput)
+    {
+        ensurePayloadLoaded();
+        this.expectedOutput = expectedOutput;
+        this.expectedOutputFile = null;
+    }
 
-    public String getInputData() { return inputData; }
-    public void setInputData(String inputData) { this.inputData = inputData; }
+    // Returns the input as it is given to the program (streamed from the sidecar file if there is one)
+    public RunInput getRunInput()
+    {
+        ensurePayloadLoaded();
+        return inputFile != null ? RunInput.ofFile(inputFile) : RunInput.ofText(inputData);
+    }
+
+    // Returns the sidecar file holding the input, or null if the input is stored in the test case itself
+    public File getInputFile()
+    {
+        ensurePayloadLoaded();
+        return inputFile;
+    }
 
-    public String getExpectedOutput() { return expectedOutput; }
-    public void setExpectedOutput(String expectedOutput) { this.expectedOutput = expectedOutput; }
+    // Returns the sidecar file holding the expected output, or null if it is stored in the test case itself
+    public File getExpectedOutputFile()
+    {
+        ensurePayloadLoaded();
+        return expectedOutputFile;
+    }
+
+    // Returns the expected output for display: all of it, or the beginning if it is stored in a sidecar file
+    // Additional: Results keep this instead of the full text, so large expected outputs are not copied per student.
+    public String getExpectedOutputPreview()
+    {
+        ensurePayloadLoaded();
+        if (expectedOutputFile == null)
+        {
+            return expectedOutput;
+        }
+        try (Reader reader = Files.newBufferedReader(expectedOutputFile.toPath()))
+        {
+            char[] preview = new char[PREVIEW_CHARS];
+            int length = 0;
+            int read;
+            while (length < preview.length && (read = reader.read(preview, length, preview.length - length)) != -1)
+            {
+                length += read;
+            }
+            String text = new String(preview, 0, length);
+            long fileLength = expectedOutputFile.length();
+            return length < preview.length ? text
+                : text + "\n... [expected output continues in " + expectedOutputFile.getName() + ", " + fileLength + " bytes] ...";
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot read " + expectedOutputFile.getName() + ": " + e.getMessage(), e);
+        }
+    }
 
     public String getType() { return type; }
     public void setType(String type) { this.type = type; }
 
     // Get the filename for this test case based on its title
-    // Additional: Sanitizes title to remove invalid characters for filenames
+    // Additional: Sanitizes title to remove invalid characters for filenames (done once per title change)
     public String getFilename()
     {
-        return sanitizeFilename(title) + ".testcase";
+        return filename;
     }
 
     // Save test case to a file under rootFolder/test-cases (case-insensitive folder lookup)
     // Additional: Creates the folder if it does not exist, writes fields in order
+    // Uses the original four-line format when input and expected output are single lines, format v2 otherwise.
     public void saveToFile(String rootFolder) throws IOException
     {
+        ensurePayloadLoaded(); // Read the old file before it is overwritten
         File rootFolderFile = new File(rootFolder);
         File testCasesFolder = findFolderCaseInsensitive(rootFolderFile, "test-cases");
         if (testCasesFolder == null)
@@ -52,20 +153,90 @@ public class TestCase
         }
 
         File testCaseFile = new File(testCasesFolder, getFilename());
+        if (inputFile == null && expectedOutputFile == null && isSingleLine(inputData) && isSingleLine(expectedOutput))
+        {
+            try (PrintWriter writer = new PrintWriter(new FileWriter(testCaseFile)))
+            {
+                writer.println(title);
+                writer.println(type);
+                writer.println(inputData);
+                writer.println(expectedOutput);
+            }
+            deleteSidecars(testCasesFolder);
+            return;
+        }
 
-        try (PrintWriter writer = new PrintWriter(new FileWriter(testCaseFile)))
+        // Format v2: sidecar files are written first, so the .testcase file never points to a missing file
+        String baseName = getFilename().substring(0, getFilename().length() - ".testcase".length());
+        String inputLine = savePayload(testCasesFolder, baseName + ".input", "input", inputData, inputFile);
+        String expectedLine = savePayload(testCasesFolder, baseName + ".expected", "expected", expectedOutput, expectedOutputFile);
+        try (Writer writer = Files.newBufferedWriter(testCaseFile.toPath()))
         {
-            writer.println(title);
-            writer.println(type);
-            writer.println(inputData);
-            writer.println(expectedOutput);
+            writer.write(FORMAT_V2_HEADER + "\n" + title + "\n" + type + "\n");
+            writer.write(inputLine);
+            writer.write(expectedLine);
+        }
+        inputFile = inputLine.startsWith("input file ") ? new File(testCasesFolder, baseName + ".input") : null;
+        expectedOutputFile = expectedLine.startsWith("expected file ") ? new File(testCasesFolder, baseName + ".expected") : null;
+        if (inputFile != null)
+        {
+            inputData = null;
+        }
+        if (expectedOutputFile != null)
+        {
+            expectedOutput = null;
         }
     }
 
+    // Writes one payload of a format v2 file: returns its lines, after saving it to a sidecar file if it is large
+    // Additional: A payload that already lives in a sidecar file is copied as a stream (or left alone if it is that file).
+    private static String savePayload(File folder, String sidecarName, String key, String text, File currentFile) throws IOException
+    {
+        File sidecar = new File(folder, sidecarName);
+        if (currentFile != null)
+        {
+            if (!currentFile.getCanonicalFile().equals(sidecar.getCanonicalFile()))
+            {
+                Files.copy(currentFile.toPath(), sidecar.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return key + " file " + sidecarName + "\n";
+        }
+        String value = text != null ? text : "";
+        if (value.length() > INLINE_PAYLOAD_LIMIT)
+        {
+            Files.writeString(sidecar.toPath(), value, StandardCharsets.UTF_8);
+            return key + " file " + sidecarName + "\n";
+        }
+        Files.deleteIfExists(sidecar.toPath()); // Left over from a larger version of this test case
+        return key + " inline " + value.length() + "\n" + value + "\n";
+    }
+
+    // Removes the sidecar files of this test case (after saving it in the four-line format)
+    private void deleteSidecars(File testCasesFolder) throws IOException
+    {
+        String baseName = getFilename().substring(0, getFilename().length() - ".testcase".length());
+        Files.deleteIfExists(new File(testCasesFolder, baseName + ".input").toPath());
+        Files.deleteIfExists(new File(testCasesFolder, baseName + ".expected").toPath());
+    }
+
+    // Returns true if the text fits on one line of the four-line format
+    private static boolean isSingleLine(String text)
+    {
+        return text == null || (text.indexOf('\n') < 0 && text.indexOf('\r') < 0);
+    }
+
     // Load test case from a file
-    // Additional: Reads all lines and expects at least 4 lines in proper order
+    // Additional: Reads all lines and expects at least 4 lines in proper order (format v2: see the class comment)
     public static TestCase loadFromFile(File testCaseFile) throws IOException
     {
+        try (BufferedReader reader = Files.newBufferedReader(testCaseFile.toPath()))
+        {
+            if (FORMAT_V2_HEADER.equals(reader.readLine()))
+            {
+                return loadFormatV2(testCaseFile, reader);
+            }
+        }
+
         java.util.List<String> lines = Files.readAllLines(testCaseFile.toPath());
         if (lines.size() < 4)
         {
@@ -80,6 +251,146 @@ public class TestCase
         );
     }
 
+    // Load only the header (title and type) of a test case file
+    // Additional: Input and expected output are read from the file the first time they are needed,
+    // so opening a large library only reads the first two lines of each file.
+    public static TestCase loadHeaderFromFile(File testCaseFile) throws IOException
+    {
+        try (BufferedReader reader = Files.newBufferedReader(testCaseFile.toPath()))
+        {
+            String title = reader.readLine();
+            if (FORMAT_V2_HEADER.equals(title))
+            {
+                title = reader.readLine();
+            }
+            String type = reader.readLine();
+            if (title == null || type == null)
+            {
+                throw new IOException("Invalid test case file format");
+            }
+            return createLazy(title, type, () -> loadFromFile(testCaseFile));
+        }
+    }
+
+    // Reads the rest of a format v2 file (after the header line)
+    // Additional: Sidecar payloads are not read here - only their files are remembered.
+    private static TestCase loadFormatV2(File testCaseFile, BufferedReader reader) throws IOException
+    {
+        String title = reader.readLine();
+        String type = reader.readLine();
+        if (title == null || type == null)
+        {
+            throw new IOException("Invalid test case file format");
+        }
+        TestCase testCase = new TestCase(title, null, null, type);
+        File folder = testCaseFile.getAbsoluteFile().getParentFile();
+
+        String[] input = readPayload(reader, "input", folder);
+        testCase.inputData = input[0];
+        testCase.inputFile = input[1] != null ? new File(folder, input[1]) : null;
+        String[] expected = readPayload(reader, "expected", folder);
+        testCase.expectedOutput = expected[0];
+        testCase.expectedOutputFile = expected[1] != null ? new File(folder, expected[1]) : null;
+        return testCase;
+    }
+
+    // Reads one payload of a format v2 file: returns {inline text, null} or {null, sidecar file name}
+    private static String[] readPayload(BufferedReader reader, String key, File folder) throws IOException
+    {
+        String line = reader.readLine();
+        if (line != null && line.startsWith(key + " file "))
+        {
+            String name = line.substring((key + " file ").length());
+            if (name.contains("/") || name.contains("\\") || !new File(folder, name).isFile())
+            {
+                throw new IOException("Missing " + key + " file: " + name);
+            }
+            return new String[] {null, name};
+        }
+        if (line == null || !line.startsWith(key + " inline "))
+        {
+            throw new IOException("Invalid test case file format: expected '" + key + " inline' or '" + key + " file'");
+        }
+        int length;
+        try
+        {
+            length = Integer.parseInt(line.substring((key + " inline ").length()).trim());
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Invalid " + key + " length: " + line);
+        }
+        char[] text = new char[length];
+        int read = 0;
+        while (read < length)
+        {
+            int count = reader.read(text, read, length - read);
+            if (count == -1)
+            {
+                throw new IOException("Test case file ends inside its " + key);
+            }
+            read += count;
+        }
+        reader.readLine(); // Line break after the payload
+        return new String[] {new String(text), null};
+    }
+
+    // Reads a whole sidecar file (only when the full text is asked for, e.g. by the editor)
+    private static String readSidecar(File file)
+    {
+        try
+        {
+            return Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException("Cannot read " + file.getName() + ": " + e.getMessage(), e);
+        }
+    }
+
+    // Create a header-only test case whose input and expected output are read by payloadLoader on first use
+    // Additional: payloadLoader returns a test case holding the full data (e.g. loadFromFile of the same file).
+    public static TestCase createLazy(String title, String type, Callable<TestCase> payloadLoader)
+    {
+        TestCase testCase = new TestCase(title, null, null, type);
+        testCase.payloadLoader = payloadLoader;
+        return testCase;
+    }
+
+    // Reads input and expected output if this test case was loaded header-only and they were not read yet
+    private void ensurePayloadLoaded()
+    {
+        if (payloadLoader != null)
+        {
+            loadPayload();
+        }
+    }
+
+    // Reads input and expected output through the payload loader (once, even if several threads ask at the same time)
+    // Additional: Fails with an UncheckedIOException since the getters cannot throw IOException.
+    private synchronized void loadPayload()
+    {
+        Callable<TestCase> loader = payloadLoader;
+        if (loader == null)
+        {
+            return; // Another thread loaded it first
+        }
+        try
+        {
+            TestCase loaded = loader.call();
+            inputData = loaded.inputData;
+            inputFile = loaded.inputFile;
+            expectedOutput = loaded.expectedOutput;
+            expectedOutputFile = loaded.expectedOutputFile;
+            payloadLoader = null;
+        }
+        catch (Exception e)
+        {
+            IOException cause = e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+            throw new UncheckedIOException("Cannot read test case '" + title + "': " + e.getMessage(), cause);
+        }
+    }
+
     // Helper method to find a folder by name case-insensitively
     // Returns the actual folder File if found, or null if not found
     private static File findFolderCaseInsensitive(File parentFolder, String folderName)
@@ -107,6 +418,6 @@ public class TestCase
     // Additional: Replaces any character not allowed in filenames with underscore
     private String sanitizeFilename(String name)
     {
-        return name.replaceAll("[^a-zA-Z0-9._-]", "_");
+        return UNSAFE_FILENAME_CHARS.matcher(name).replaceAll("_");
     }
 }
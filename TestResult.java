@@ -1,18 +1,37 @@
+import java.util.Collections;
+import java.util.List;
+
 public class TestResult
 {
     private String studentName;
     private String testCaseTitle;
-    private String status; // PASSED, FAILED, COMPILE ERROR, RUNTIME ERROR, or SKIPPED
+    private String status; // PASSED, FAILED, COMPILE ERROR, RUNTIME ERROR, TIMEOUT, OUTPUT LIMIT EXCEEDED, a resource limit status (see ResourceLimits), or SKIPPED
     private String actualOutput;
     private String expectedOutput;
+    private List<CompileDiagnostic> compileDiagnostics; // Compiler messages for the student's submission (shared by all its results)
+    private Integer exitCode; // Exit code of the run (null if the program did not run to its end or was not run)
 
     public TestResult(String studentName, String testCaseTitle, String status, String actualOutput, String expectedOutput)
+    {
+        this(studentName, testCaseTitle, status, actualOutput, expectedOutput, Collections.emptyList());
+    }
+
+    public TestResult(String studentName, String testCaseTitle, String status, String actualOutput, String expectedOutput,
+                      List<CompileDiagnostic> compileDiagnostics)
     {
         this.studentName = studentName;
         this.testCaseTitle = testCaseTitle;
         this.status = status;
         this.actualOutput = actualOutput;
         this.expectedOutput = expectedOutput;
+        this.compileDiagnostics = compileDiagnostics != null ? compileDiagnostics : Collections.emptyList();
+    }
+
+    public TestResult(String studentName, String testCaseTitle, String status, String actualOutput, String expectedOutput,
+                      List<CompileDiagnostic> compileDiagnostics, Integer exitCode)
+    {
+        this(studentName, testCaseTitle, status, actualOutput, expectedOutput, compileDiagnostics);
+        this.exitCode = exitCode;
     }
 
     public String getStudentName() { return studentName; }
@@ -20,6 +39,8 @@ public class TestResult
     public String getStatus() { return status; }
     public String getActualOutput() { return actualOutput; }
     public String getExpectedOutput() { return expectedOutput; }
+    public List<CompileDiagnostic> getCompileDiagnostics() { return compileDiagnostics; }
+    public Integer getExitCode() { return exitCode; }
 
     // Format for display in results list
     public String toDisplayString()
@@ -5,8 +5,11 @@ import java.nio.file.Files;
 
 public class TestSuite
 {
+    private static final String LAUNCH_PROFILE_PREFIX = "#launch-profile "; // Never a test case filename
+
     private String title; // Title of the test suite
     private List<String> testCaseFilenames; // Stores filenames of test cases included in the suite
+    private LaunchProfile launchProfile; // JVM flags student programs are started with for this suite
 
     // Constructor: Initializes a TestSuite with a title and empty list of test case filenames
     // Additional: Prepares suite for adding test cases and saving/loading
@@ -14,12 +17,20 @@ public class TestSuite
     {
         this.title = title;
         this.testCaseFilenames = new ArrayList<>();
+        this.launchProfile = LaunchProfile.STANDARD;
     }
 
     // Getter and setter for suite title
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
+    // Getter and setter for the launch profile used when this suite is executed
+    public LaunchProfile getLaunchProfile() { return launchProfile; }
+    public void setLaunchProfile(LaunchProfile launchProfile)
+    {
+        this.launchProfile = launchProfile != null ? launchProfile : LaunchProfile.STANDARD;
+    }
+
     // Returns the list of test case filenames
     public List<String> getTestCaseFilenames() { return testCaseFilenames; }
 
@@ -39,8 +50,16 @@ public class TestSuite
         testCaseFilenames.remove(filename);
     }
 
+    // Get the filename for this test suite based on its title
+    // Additional: Sanitizes title to remove invalid characters for filenames
+    public String getFilename()
+    {
+        return sanitizeFilename(title) + ".suite";
+    }
+
     // Save this test suite to a file in rootFolder/test-suites (case-insensitive folder lookup)
     // Additional: Creates folder if necessary and writes title + list of test case filenames
+    // A launch profile other than STANDARD is written as a "#launch-profile <name>" line after the title.
     public void saveToFile(String rootFolder) throws IOException
     {
         File rootFolderFile = new File(rootFolder);
@@ -52,12 +71,15 @@ public class TestSuite
             suitesFolder.mkdirs(); // Ensure folder exists
         }
 
-        String filename = sanitizeFilename(title) + ".suite";
-        File suiteFile = new File(suitesFolder, filename);
+        File suiteFile = new File(suitesFolder, getFilename());
 
         try (PrintWriter writer = new PrintWriter(new FileWriter(suiteFile)))
         {
             writer.println(title); // Write title as first line
+            if (launchProfile != LaunchProfile.STANDARD)
+            {
+                writer.println(LAUNCH_PROFILE_PREFIX + launchProfile.name());
+            }
             for (String testCaseFilename : testCaseFilenames)
             {
                 writer.println(testCaseFilename); // Write each test case filename
@@ -79,7 +101,11 @@ public class TestSuite
         for (int i = 1; i < lines.size(); i++)
         {
             String filename = lines.get(i).trim();
-            if (!filename.isEmpty())
+            if (filename.startsWith(LAUNCH_PROFILE_PREFIX))
+            {
+                suite.setLaunchProfile(LaunchProfile.fromName(filename.substring(LAUNCH_PROFILE_PREFIX.length()).trim()));
+            }
+            else if (!filename.isEmpty())
             {
                 suite.addTestCaseFilename(filename);
             }
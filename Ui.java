@@ -1,3 +1,5 @@
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
@@ -8,6 +10,7 @@ import javafx.stage.Stage;
 import javafx.scene.control.ListView;
 import java.io.File;
 import java.util.List;
+import java.util.function.Supplier;
 
 public class Ui
 {
@@ -118,13 +121,14 @@ public class Ui
         Label saveFolderLabel = new Label("Folder containing test-suites/ and test-cases folders: Not set");
         saveFolderLabel.setStyle("-fx-text-fill: #E8E8F2; -fx-font-weight: 600;");
         Button browseSaveFolderButton = new Button("Browse Test Folders");
+        Button packLibraryButton = new Button("Pack Test Library");
         Button createSuiteButton = new Button("Create New Suite");
         Button selectSuiteButton = new Button("Select Existing Suite");
         Button createCaseButton = new Button("Create New Test Case");
         Button manageCasesButton = new Button("Manage Test Cases");
 
         // style buttons (apply consistent style + hover)
-        Button[] topButtons = {browseSaveFolderButton, createSuiteButton, selectSuiteButton, createCaseButton, manageCasesButton};
+        Button[] topButtons = {browseSaveFolderButton, packLibraryButton, createSuiteButton, selectSuiteButton, createCaseButton, manageCasesButton};
         for (Button b : topButtons) {
             styleButton(b);
         }
@@ -146,6 +150,7 @@ public class Ui
         VBox layout = new VBox(10,
                 saveFolderLabel,
                 browseSaveFolderButton,
+                packLibraryButton,
                 new Separator(),
                 createSuiteButton,
                 selectSuiteButton,
@@ -183,12 +188,15 @@ public class Ui
             String saveFolder = coordinator.getSaveFolder();
             if (saveFolder != null && !saveFolder.isEmpty())
             {
-                saveFolderLabel.setText("Folder containing test-suites/ and test-cases: " + saveFolder);
+                saveFolderLabel.setText("Folder containing test-suites/ and test-cases: " + saveFolder
+                    + (coordinator.isLibraryPacked() ? " (packed library)" : ""));
             }
             else
             {
                 saveFolderLabel.setText("Folder containing test-suites/ and test-cases: Not set");
             }
+            packLibraryButton.setText(coordinator.isLibraryPacked()
+                ? "Unpack Test Library (one file per test case)" : "Pack Test Library (single file)");
         };
         updateSaveFolderLabel.run();
 
@@ -234,6 +242,29 @@ public class Ui
             }
         });
 
+        // Button action: Switches the save folder between one file per test case/suite and a single packed library
+        // Packing keeps the old files as a backup; unpacking writes every test case and suite back to its own file
+        packLibraryButton.setOnAction(e -> {
+            try
+            {
+                if (coordinator.isLibraryPacked())
+                {
+                    coordinator.unpackLibrary();
+                    showInfoDialog("Library Unpacked", "Every test case and suite has been written to its own file.");
+                }
+                else
+                {
+                    coordinator.packLibrary();
+                    showInfoDialog("Library Packed", "Test cases and suites are now stored in " + PackedTestLibrary.DATA_FILE_NAME + ".");
+                }
+                updateSaveFolderLabel.run();
+            }
+            catch (Exception ex)
+            {
+                showErrorDialog("Error", "Failed to convert the test library: " + ex.getMessage());
+            }
+        });
+
         // Button action: Creates a new test suite with a user-provided title
         // Opens a text input dialog to get the suite name, then creates and selects the new suite
         createSuiteButton.setOnAction(e -> {
@@ -458,10 +489,16 @@ public class Ui
                     {
                         try
                         {
-                            // Update the test case
-                            tc.setTitle(edited.getTitle());
-                            tc.setInputData(edited.getInputData());
-                            tc.setExpectedOutput(edited.getExpectedOutput());
+                            // Update the test case (renaming through the coordinator keeps its indexes in sync)
+                            coordinator.renameTestCase(tc, edited.getTitle());
+                            if (edited.getInputData() != null) // null = kept in its file (see promptTestCase)
+                            {
+                                tc.setInputData(edited.getInputData());
+                            }
+                            if (edited.getExpectedOutput() != null)
+                            {
+                                tc.setExpectedOutput(edited.getExpectedOutput());
+                            }
                             tc.setType(edited.getType());
                             
                             // Save the updated test case
@@ -479,7 +516,7 @@ public class Ui
         });
 
         // Button action: Deletes the selected test case
-        // Removes it from the global list and deletes the file from disk
+        // Removes it from the global list and deletes it from disk (its file, or its entry in a packed library)
         // Note: This does not remove references from test suites (they will show as "not found")
         deleteCaseButton.setOnAction(e -> {
             String selected = testCaseList.getSelectionModel().getSelectedItem();
@@ -489,21 +526,10 @@ public class Ui
                 TestCase tc = coordinator.getTestCaseByFilename(filename);
                 if (tc != null)
                 {
-                    // Remove from list
-                    coordinator.getListOfTestCases().removeTestCase(tc);
-                    
-                    // Delete file
+                    // Remove from list and delete from disk
                     try
                     {
-                        String saveFolder = coordinator.getSaveFolder();
-                        if (saveFolder != null && !saveFolder.isEmpty())
-                        {
-                            File testCaseFile = new File(new File(saveFolder, "test-cases"), filename);
-                            if (testCaseFile.exists())
-                            {
-                                testCaseFile.delete();
-                            }
-                        }
+                        coordinator.deleteTestCase(tc);
                     }
                     catch (Exception ex)
                     {
@@ -586,14 +612,106 @@ public class Ui
         codePathField.setPromptText("e.g., src (leave empty if code is directly in submission folder)");
         Label codePathLabel = new Label("Code path within each submission folder:");
 
+        // Number of test cases run at the same time (defaults to one per processor)
+        // Forked runs hold no grader thread while running, so far more runs than processors may be in flight
+        Label workerCountLabel = new Label("Parallel workers:");
+        Spinner<Integer> workerCountSpinner = new Spinner<>(1, 4096, coordinator.getExecutionSettings().getWorkerCount());
+        workerCountSpinner.setEditable(true);
+
+        // Submissions compiled at the same time; compiling overlaps with running the test cases
+        Label compileWorkerCountLabel = new Label("Parallel compiles:");
+        Spinner<Integer> compileWorkerCountSpinner = new Spinner<>(1, 256,
+            coordinator.getExecutionSettings().getCompileWorkerCount());
+        compileWorkerCountSpinner.setEditable(true);
+
+        // Time limits: per test case, and optionally for the whole suite (0 = no limit)
+        Label caseTimeoutLabel = new Label("Time limit per test case (seconds):");
+        Spinner<Integer> caseTimeoutSpinner = new Spinner<>(1, 3600,
+            (int) Math.max(1, coordinator.getExecutionSettings().getCaseTimeoutMillis() / 1000));
+        caseTimeoutSpinner.setEditable(true);
+        Label suiteBudgetLabel = new Label("Time budget for the whole suite (minutes, 0 = no limit):");
+        Spinner<Integer> suiteBudgetSpinner = new Spinner<>(0, 24 * 60,
+            (int) (coordinator.getExecutionSettings().getSuiteTimeBudgetMillis() / 60000));
+        suiteBudgetSpinner.setEditable(true);
+        Label outputLimitLabel = new Label("Output kept per test case (KB):");
+        Spinner<Integer> outputLimitSpinner = new Spinner<>(1, 1024 * 1024,
+            (int) (coordinator.getExecutionSettings().getOutputLimitBytes() / 1024));
+        outputLimitSpinner.setEditable(true);
+
+        // Resource limits of each student process (0 = no limit); CPU time needs Linux prlimit
+        ResourceLimits limits = coordinator.getExecutionSettings().getResourceLimits();
+        Label heapLimitLabel = new Label("Heap per test case (MB, 0 = JVM default):");
+        Spinner<Integer> heapLimitSpinner = new Spinner<>(0, 64 * 1024, limits.getHeapMegabytes());
+        heapLimitSpinner.setEditable(true);
+        Label cpuLimitLabel = new Label("CPU time per test case (seconds, 0 = no limit):");
+        Spinner<Integer> cpuLimitSpinner = new Spinner<>(0, 3600, limits.getCpuSeconds());
+        cpuLimitSpinner.setEditable(true);
+
+        // Optional: run test cases in long-lived worker JVMs instead of a new JVM per test case
+        CheckBox warmPoolCheckBox = new CheckBox("Reuse warm worker JVMs (faster, isolated class loaders)");
+        warmPoolCheckBox.setSelected(coordinator.getExecutionSettings().getRunMode() == RunMode.WARM_POOL);
+        // Or: one worker JVM per student that runs all of their test cases (start-up paid once per student)
+        CheckBox batchedCheckBox = new CheckBox("Run each student's test cases in one JVM (isolated class loaders)");
+        batchedCheckBox.setSelected(coordinator.getExecutionSettings().getRunMode() == RunMode.BATCHED);
+        // The two run modes exclude each other
+        warmPoolCheckBox.selectedProperty().addListener((obs, was, selected) -> {
+            if (selected)
+            {
+                batchedCheckBox.setSelected(false);
+            }
+        });
+        batchedCheckBox.selectedProperty().addListener((obs, was, selected) -> {
+            if (selected)
+            {
+                warmPoolCheckBox.setSelected(false);
+            }
+        });
+
+        // Launch profile of the suite (saved with it): start-up tuned JVM flags for each new JVM
+        TestSuite executedSuite = coordinator.getCurrentTestSuite();
+        CheckBox fastStartupCheckBox = new CheckBox("Fast JVM start-up for this suite (CDS archive, C1 only, Serial GC)");
+        fastStartupCheckBox.setSelected(executedSuite.getLaunchProfile() == LaunchProfile.FAST_STARTUP);
+
+        // Stored results of unchanged submissions/test cases are reused unless the user asks for a full re-run
+        CheckBox reuseResultsCheckBox = new CheckBox("Reuse results of unchanged submissions and test cases");
+        reuseResultsCheckBox.setSelected(coordinator.getExecutionSettings().isResultReuseEnabled());
+
+        // Classes compiled during a run (outside the compile cache) can be kept in RAM instead of the temp folder
+        CheckBox tmpfsCheckBox = new CheckBox("Compile into RAM (tmpfs) during a run, if available");
+        tmpfsCheckBox.setSelected(coordinator.getExecutionSettings().isScratchOnTmpfs());
+
         Button executeButton = new Button("Execute Test Suite");
+        Button cancelButton = new Button("Cancel Execution");
         Button backButton = new Button("Back");
+        cancelButton.setDisable(true);
+
+        // Live progress of a running execution: bar, counts/throughput/ETA, and results as they finish
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        Label progressLabel = new Label("Not started");
+        ListView<String> liveResultsList = new ListView<>();
+        liveResultsList.setPrefHeight(150);
 
         // styles
         rootFolderLabel.setStyle("-fx-text-fill: #E8E8F2;");
         codePathLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        workerCountLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        compileWorkerCountLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        warmPoolCheckBox.setStyle("-fx-text-fill: #E8E8F2;");
+        batchedCheckBox.setStyle("-fx-text-fill: #E8E8F2;");
+        fastStartupCheckBox.setStyle("-fx-text-fill: #E8E8F2;");
+        reuseResultsCheckBox.setStyle("-fx-text-fill: #E8E8F2;");
+        tmpfsCheckBox.setStyle("-fx-text-fill: #E8E8F2;");
+        caseTimeoutLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        suiteBudgetLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        outputLimitLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        heapLimitLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        cpuLimitLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        progressLabel.setStyle("-fx-text-fill: #E8E8F2;");
+        liveResultsList.setStyle("-fx-background-color: #262634; -fx-control-inner-background: #262634; -fx-border-color: #3a3a5a; -fx-border-radius: 6; -fx-padding: 6; -fx-text-fill: #E8E8F2;");
         codePathField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6; -fx-padding: 6 8;");
         styleButton(executeButton, "8 14");
+        styleButton(cancelButton);
         styleButton(backButton);
 
         VBox layout = new VBox(15,
@@ -602,8 +720,31 @@ public class Ui
                 rootFolderLabel,
                 codePathLabel,
                 codePathField,
+                workerCountLabel,
+                workerCountSpinner,
+                compileWorkerCountLabel,
+                compileWorkerCountSpinner,
+                warmPoolCheckBox,
+                batchedCheckBox,
+                fastStartupCheckBox,
+                reuseResultsCheckBox,
+                tmpfsCheckBox,
+                caseTimeoutLabel,
+                caseTimeoutSpinner,
+                suiteBudgetLabel,
+                suiteBudgetSpinner,
+                outputLimitLabel,
+                outputLimitSpinner,
+                heapLimitLabel,
+                heapLimitSpinner,
+                cpuLimitLabel,
+                cpuLimitSpinner,
                 new Separator(),
                 executeButton,
+                progressBar,
+                progressLabel,
+                liveResultsList,
+                cancelButton,
                 backButton
         );
         // style header label
@@ -611,22 +752,91 @@ public class Ui
 
         layout.setStyle("-fx-padding: 30; -fx-alignment: center; -fx-background-color: linear-gradient(to bottom right, #1e1e2f, #2d2d44);");
 
-        Scene scene = new Scene(layout, 800, 500);
+        Scene scene = new Scene(new ScrollPane(layout), 800, 700);
+        ((ScrollPane) scene.getRoot()).setFitToWidth(true);
 
         // Button action: Executes the test suite on all student submissions
         // Gets the code path (if specified) and triggers test execution
+        // Additional: Runs on a background thread so the window stays responsive; results stream into the live list.
         executeButton.setOnAction(e -> {
             String codePath = codePathField.getText().trim();
-            try
+            coordinator.setWorkerCount(workerCountSpinner.getValue());
+            coordinator.getExecutionSettings().setCompileWorkerCount(compileWorkerCountSpinner.getValue());
+            coordinator.getExecutionSettings().setRunMode(warmPoolCheckBox.isSelected() ? RunMode.WARM_POOL
+                : batchedCheckBox.isSelected() ? RunMode.BATCHED : RunMode.FORK_PER_CASE);
+            coordinator.getExecutionSettings().setCaseTimeoutMillis(caseTimeoutSpinner.getValue() * 1000L);
+            coordinator.getExecutionSettings().setSuiteTimeBudgetMillis(suiteBudgetSpinner.getValue() * 60000L);
+            coordinator.getExecutionSettings().setOutputLimitBytes(outputLimitSpinner.getValue() * 1024L);
+            limits.setHeapMegabytes(heapLimitSpinner.getValue());
+            limits.setCpuSeconds(cpuLimitSpinner.getValue());
+            coordinator.getExecutionSettings().setResultReuseEnabled(reuseResultsCheckBox.isSelected());
+            coordinator.getExecutionSettings().setScratchOnTmpfs(tmpfsCheckBox.isSelected());
+            LaunchProfile launchProfile = fastStartupCheckBox.isSelected() ? LaunchProfile.FAST_STARTUP : LaunchProfile.STANDARD;
+            if (executedSuite.getLaunchProfile() != launchProfile)
             {
-                // Execute the test suite and get results
-                List<TestResult> results = coordinator.executeTestSuite(codePath);
-                showResultsScreen(results);
+                executedSuite.setLaunchProfile(launchProfile);
+                try
+                {
+                    coordinator.saveTestSuite(executedSuite); // The profile is remembered per suite
+                }
+                catch (Exception ex)
+                {
+                    showErrorDialog("Error", "Failed to save the suite's launch profile: " + ex.getMessage());
+                }
             }
-            catch (Exception ex)
+
+            liveResultsList.getItems().clear();
+            progressBar.setProgress(0);
+            progressLabel.setText("Compiling and starting...");
+            long startTime = System.currentTimeMillis();
+
+            // Each finished result is handed over to the JavaFX thread, which updates the progress display
+            ExecutionListener listener = (result, completed, total) -> Platform.runLater(() -> {
+                liveResultsList.getItems().add(result.toDisplayString());
+                liveResultsList.scrollTo(liveResultsList.getItems().size() - 1);
+                progressBar.setProgress((double) completed / total);
+                progressLabel.setText(formatProgress(completed, total, System.currentTimeMillis() - startTime));
+            });
+
+            Task<List<TestResult>> task = new Task<>()
             {
-                showErrorDialog("Execution Error", "Failed to execute test suite: " + ex.getMessage());
-            }
+                @Override
+                protected List<TestResult> call() throws Exception
+                {
+                    // Execute the test suite and get results
+                    return coordinator.executeTestSuite(codePath, listener);
+                }
+            };
+            task.setOnSucceeded(done -> showResultsScreen(task.getValue()));
+            task.setOnFailed(done -> {
+                executeButton.setDisable(false);
+                backButton.setDisable(false);
+                cancelButton.setDisable(true);
+                if (cancelButton.getText().equals("Cancelling..."))
+                {
+                    progressLabel.setText("Execution cancelled");
+                }
+                else
+                {
+                    progressLabel.setText("Execution failed");
+                    showErrorDialog("Execution Error", "Failed to execute test suite: " + task.getException().getMessage());
+                }
+                cancelButton.setText("Cancel Execution");
+            });
+
+            executeButton.setDisable(true);
+            backButton.setDisable(true);
+            cancelButton.setDisable(false);
+            Thread thread = new Thread(task, "test-suite-execution");
+            thread.setDaemon(true); // Closing the window must not wait for the run
+            thread.start();
+        });
+
+        // Button action: Cancels the running execution and kills the student programs still running
+        cancelButton.setOnAction(e -> {
+            cancelButton.setText("Cancelling...");
+            cancelButton.setDisable(true);
+            coordinator.cancelExecution();
         });
 
         backButton.setOnAction(e -> {
@@ -636,8 +846,37 @@ public class Ui
         primaryStage.setScene(scene);
     }
 
+    // Formats compiler messages for the comparison screen (one per line, file name and line first)
+    private String formatDiagnostics(List<CompileDiagnostic> diagnostics)
+    {
+        if (diagnostics.isEmpty())
+        {
+            return "";
+        }
+        StringBuilder text = new StringBuilder("\n\nCompiler messages:");
+        for (CompileDiagnostic diagnostic : diagnostics)
+        {
+            text.append("\n").append(diagnostic.toDisplayString());
+        }
+        return text.toString();
+    }
+
+    // Builds the progress line shown while a test suite runs, e.g. "12 / 40 test cases - 3.5 cases/s - about 8 s left"
+    // Additional: Throughput and ETA are averaged over the whole run so far.
+    private String formatProgress(int completed, int total, long elapsedMillis)
+    {
+        double casesPerSecond = elapsedMillis > 0 ? completed * 1000.0 / elapsedMillis : 0;
+        String text = completed + " / " + total + " test cases - " + String.format("%.1f cases/s", casesPerSecond);
+        if (completed < total && casesPerSecond > 0)
+        {
+            long secondsLeft = Math.round((total - completed) / casesPerSecond);
+            text += " - about " + (secondsLeft >= 60 ? (secondsLeft / 60) + " min " + (secondsLeft % 60) + " s" : secondsLeft + " s") + " left";
+        }
+        return text;
+    }
+
     // Method to display the test execution results screen
-    // Shows a list of all students with their test case results (PASSED/FAILED/COMPILE ERROR)
+    // Shows a list of all students with their test case results (PASSED/FAILED/COMPILE ERROR/TIMEOUT)
     // User can select a result to view detailed side-by-side comparison
     private void showResultsScreen(List<TestResult> results)
     {
@@ -805,72 +1044,11 @@ public class Ui
         return name.replaceAll("[^a-zA-Z0-9._-]", "_");
     }
 
-    // Helper method to repeat a string (for compatibility with older Java versions)
-    private String repeatString(String str, int count)
-    {
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < count; i++)
-        {
-            sb.append(str);
-        }
-        return sb.toString();
-    }
-
     // Method to save test results to a file
-    // Formats results with student names, test cases, and status
+    // Additional: The report format lives in ResultsReport so the headless BatchRunner writes the same file.
     private void saveResultsToFile(List<TestResult> results, File file, String suiteTitle) throws java.io.IOException
     {
-        try (java.io.PrintWriter writer = new java.io.PrintWriter(new java.io.FileWriter(file)))
-        {
-            // Write header
-            writer.println("Test Results for: " + suiteTitle);
-            writer.println("Generated: " + new java.util.Date());
-            writer.println(repeatString("=", 80));
-            writer.println();
-            
-            // Group results by student
-            String currentStudent = null;
-            for (TestResult result : results)
-            {
-                String studentName = result.getStudentName();
-                
-                // Add divider when student changes
-                if (currentStudent != null && !currentStudent.equals(studentName))
-                {
-                    writer.println(repeatString("-", 80));
-                }
-                
-                // Write result line
-                if (result.getStatus().startsWith("SKIPPED"))
-                {
-                    writer.println(studentName + " | " + result.getStatus());
-                }
-                else
-                {
-                    writer.println(studentName + " | " + result.getTestCaseTitle() + " | " + result.getStatus());
-                }
-                
-                currentStudent = studentName;
-            }
-            
-            // Write summary
-            writer.println();
-            writer.println(repeatString("=", 80));
-            writer.println("Summary:");
-            int total = results.size();
-            long passed = results.stream().filter(r -> r.getStatus().equals("PASSED")).count();
-            long failed = results.stream().filter(r -> r.getStatus().equals("FAILED")).count();
-            long compileErrors = results.stream().filter(r -> r.getStatus().equals("COMPILE ERROR")).count();
-            long runtimeErrors = results.stream().filter(r -> r.getStatus().equals("RUNTIME ERROR")).count();
-            long skipped = results.stream().filter(r -> r.getStatus().startsWith("SKIPPED")).count();
-            
-            writer.println("Total Results: " + total);
-            writer.println("Passed: " + passed);
-            writer.println("Failed: " + failed);
-            writer.println("Compile Errors: " + compileErrors);
-            writer.println("Runtime Errors: " + runtimeErrors);
-            writer.println("Skipped: " + skipped);
-        }
+        ResultsReport.save(results, file, suiteTitle, coordinator.getLastStartupMeasurement());
     }
 
     // Method to display the side-by-side comparison screen
@@ -936,13 +1114,28 @@ public class Ui
         String status = result.getStatus();
         if (status.equals("COMPILE ERROR"))
         {
-            actualArea.setText("Compilation failed - no output available");
+            actualArea.setText("Compilation failed - no output available" + formatDiagnostics(result.getCompileDiagnostics()));
         }
         else if (status.equals("RUNTIME ERROR"))
         {
             actualArea.setText((actualOutput != null && !actualOutput.isEmpty() ? actualOutput : "") + 
                 "\n\n[Program exited with non-zero exit code]");
         }
+        else if (status.equals("TIMEOUT"))
+        {
+            actualArea.setText((actualOutput != null && !actualOutput.isEmpty() ? actualOutput : "") + 
+                "\n\n[Program was stopped after exceeding the time limit]");
+        }
+        else if (status.equals("OUTPUT LIMIT EXCEEDED"))
+        {
+            actualArea.setText((actualOutput != null ? actualOutput : "") + 
+                "\n\n[Program printed more than the output limit - only the beginning and end are shown]");
+        }
+        else if (ResourceLimits.isBreachStatus(status))
+        {
+            actualArea.setText((actualOutput != null ? actualOutput : "") +
+                "\n\n[Program was stopped for breaking a resource limit: " + status.toLowerCase() + "]");
+        }
         else if (status.startsWith("SKIPPED"))
         {
             // For skipped folders, show a clear message
@@ -980,6 +1173,8 @@ public class Ui
     // Shows input fields for: title, input data, expected output, and type (Boolean/Int/Double/String)
     // If existing is null, creates a new test case. If existing is provided, pre-fills fields for editing
     // Returns the TestCase object if user clicks OK, or null if cancelled
+    // Additional: Input and expected output may span several lines. A payload stored in a sidecar file is not
+    // loaded into the dialog; it is kept as it is and returned as null.
     private TestCase promptTestCase(TestCase existing)
     {
         Dialog<TestCase> dialog = new Dialog<>();
@@ -989,8 +1184,10 @@ public class Ui
         dialog.getDialogPane().getButtonTypes().addAll(okButtonType, ButtonType.CANCEL);
 
         TextField titleField = new TextField();
-        TextField inputField = new TextField();
-        TextField expectedField = new TextField();
+        TextArea inputField = new TextArea();
+        TextArea expectedField = new TextArea();
+        inputField.setPrefRowCount(4);
+        expectedField.setPrefRowCount(4);
 
         titleField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
         inputField.setStyle("-fx-background-color: #303046; -fx-text-fill: #E8E8F2; -fx-background-radius: 6;");
@@ -1002,8 +1199,8 @@ public class Ui
         if (existing != null)
         {
             titleField.setText(existing.getTitle());
-            inputField.setText(existing.getInputData());
-            expectedField.setText(existing.getExpectedOutput());
+            showPayload(inputField, existing.getInputFile(), existing::getInputData);
+            showPayload(expectedField, existing.getExpectedOutputFile(), existing::getExpectedOutput);
             typeCombo.setValue(existing.getType());
         }
 
@@ -1027,8 +1224,8 @@ public class Ui
             {
                 return new TestCase(
                         titleField.getText(),
-                        inputField.getText(),
-                        expectedField.getText(),
+                        inputField.isDisable() ? null : inputField.getText(),
+                        expectedField.isDisable() ? null : expectedField.getText(),
                         typeCombo.getValue()
                 );
             }
@@ -1038,6 +1235,20 @@ public class Ui
         return dialog.showAndWait().orElse(null);
     }
 
+    // Fills a payload field of the test case dialog; a payload stored in a file is described instead of loaded
+    private void showPayload(TextArea field, File payloadFile, Supplier<String> inlineText)
+    {
+        if (payloadFile != null)
+        {
+            field.setText("(Stored in " + payloadFile.getName() + ", " + payloadFile.length() + " bytes - kept unchanged)");
+            field.setDisable(true);
+        }
+        else
+        {
+            field.setText(inlineText.get());
+        }
+    }
+
     // Helper method to apply consistent button styling with hover effects
     // Standard button style with default padding (6 12)
     private void styleButton(Button button)
@@ -0,0 +1,150 @@
+import java.io.File;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/* Pool of long-lived worker JVMs (see RunnerWorker) used instead of starting a new
+* 'java' process for every test case. Workers are started on demand, handed to one
+* run at a time and kept for the next run afterwards. A worker that breaks (for
+* example because a student program halted the JVM) is discarded and replaced.*/
+public class WarmRunnerPool
+{
+    private static WarmRunnerPool shared; // Pool used by every Program
+
+    private ConcurrentLinkedQueue<RunnerWorkerProcess> idleWorkers; // Started workers waiting for a run
+    private List<RunnerWorkerProcess> allWorkers; // Every live worker, for shutdown
+    private int maxIdleWorkers; // Workers kept alive between runs
+
+    // Constructor: creates an empty pool; workers are started when first needed
+    private WarmRunnerPool()
+    {
+        this.idleWorkers = new ConcurrentLinkedQueue<>();
+        this.allWorkers = new ArrayList<>();
+        this.maxIdleWorkers = Runtime.getRuntime().availableProcessors();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "warm-runner-shutdown"));
+    }
+
+    // Returns the runner pool shared by the whole application
+    public static synchronized WarmRunnerPool getShared()
+    {
+        if (shared == null)
+        {
+            shared = new WarmRunnerPool();
+        }
+        return shared;
+    }
+
+    // Sets how many idle workers are kept alive (normally the grading worker count)
+    public void setMaxIdleWorkers(int maxIdleWorkers)
+    {
+        this.maxIdleWorkers = Math.max(1, maxIdleWorkers);
+    }
+
+    // Run the main method of className (found in classPathDir) with the given input
+    // Returns the combined output and exit code, like a forked 'java' process would
+    // Additional: If the run takes longer than timeoutMillis (0 = no limit) the worker is killed and replaced.
+    // At most outputLimitBytes of output are kept by the worker; cancelling control kills the worker mid-run.
+    // An input file is read by the worker itself, and so is expectedOutputFile (if set) to compare the output with it.
+    public RunOutcome run(File classPathDir, String className, RunInput input, File expectedOutputFile, long timeoutMillis,
+                          long outputLimitBytes, ExecutionControl control)
+    {
+        RunnerWorkerProcess worker;
+        try
+        {
+            worker = borrowWorker();
+        }
+        catch (IOException e)
+        {   // Worker could not be started
+            return new RunOutcome("ERROR: Runner worker failed: " + e.getMessage(), null);
+        }
+        RunOutcome outcome = worker.run(classPathDir, className, input, expectedOutputFile, timeoutMillis, outputLimitBytes,
+            control);
+        if (worker.isBroken())
+        {
+            discardWorker(worker);
+        }
+        else
+        {
+            returnWorker(worker);
+        }
+        return outcome;
+    }
+
+    // Stops every worker in the pool
+    public synchronized void shutdown()
+    {
+        for (RunnerWorkerProcess worker : allWorkers)
+        {
+            worker.getProcess().destroy();
+        }
+        allWorkers.clear();
+        idleWorkers.clear();
+    }
+
+    // Takes an idle worker, or starts a new one if none is free
+    private RunnerWorkerProcess borrowWorker() throws IOException
+    {
+        RunnerWorkerProcess worker;
+        while ((worker = idleWorkers.poll()) != null)
+        {
+            if (worker.isUsable())
+            {
+                return worker;
+            }
+            discardWorker(worker);
+        }
+        return startWorker();
+    }
+
+    // Puts a worker back for reuse, or stops it if enough workers are already idle
+    private void returnWorker(RunnerWorkerProcess worker)
+    {
+        if (idleWorkers.size() < maxIdleWorkers)
+        {
+            idleWorkers.add(worker);
+        }
+        else
+        {
+            discardWorker(worker);
+        }
+    }
+
+    // Stops a worker and forgets about it
+    private synchronized void discardWorker(RunnerWorkerProcess worker)
+    {
+        worker.stop();
+        allWorkers.remove(worker);
+    }
+
+    // Starts a new worker JVM running RunnerWorker
+    private synchronized RunnerWorkerProcess startWorker() throws IOException
+    {
+        RunnerWorkerProcess worker = RunnerWorkerProcess.start(List.of(getJavaCommand()));
+        allWorkers.add(worker);
+        return worker;
+    }
+
+    // Returns the 'java' executable of the JDK running the grader
+    // Additional: Every student JVM is started with it, so the start-up archive (made for this JDK, see
+    // StartupArchive) always fits, whatever 'java' comes first on the PATH.
+    static String getJavaCommand()
+    {
+        return new File(System.getProperty("java.home"), "bin" + File.separator + "java").getAbsolutePath();
+    }
+
+    // Returns the classpath containing the grader's own classes (and so RunnerWorker)
+    // Additional: Also used to start the start-up archive's warm-up program (see StartupArchive).
+    static String getGraderClassPath()
+    {
+        try
+        {
+            return new File(RunnerWorker.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getAbsolutePath();
+        }
+        catch (URISyntaxException | NullPointerException e)
+        {
+            return System.getProperty("java.class.path");
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures Program.compareOutputs for each test case type, on a matching and a mismatching output
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompareOutputsBenchmark
+{
+    @Param({"String", "Boolean", "Int", "Double"})
+    public String type;
+
+    private Object program;
+    private MethodHandle compareOutputs;
+    private String expected;
+    private String matching;
+    private String mismatching;
+
+    @Setup
+    public void setUp()
+    {
+        program = Grader.create("Program", new Class<?>[] {String.class, File.class}, "bench", new File("Bench.java"));
+        compareOutputs = Grader.method("Program", "compareOutputs", String.class, String.class, String.class);
+        switch (type)
+        {
+            case "Boolean":
+                expected = "true";
+                matching = "TRUE\n";
+                mismatching = "false\n";
+                break;
+            case "Int":
+                expected = "1234567";
+                matching = " 1234567\n";
+                mismatching = "1234568\n";
+                break;
+            case "Double":
+                expected = "3.14159";
+                matching = "3.141592\n";
+                mismatching = "3.2\n";
+                break;
+            default:
+                expected = "The quick brown fox jumps over the lazy dog\nline two\nline three";
+                matching = expected + "\n";
+                mismatching = expected.replace("three", "four");
+                break;
+        }
+    }
+
+    @Benchmark
+    public boolean matching() throws Throwable
+    {
+        return (boolean) compareOutputs.invoke(program, matching, expected, type);
+    }
+
+    @Benchmark
+    public boolean mismatching() throws Throwable
+    {
+        return (boolean) compareOutputs.invoke(program, mismatching, expected, type);
+    }
+}
@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures Coordinator.executeTestSuite end to end (discovery, compile, run, compare) on generated submissions
+// Additional: Stored results are never reused, so every iteration really runs all test cases.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class ExecuteSuiteBenchmark
+{
+    @Param({"20"})
+    public int studentCount;
+
+    @Param({"3"})
+    public int testCaseCount;
+
+    @Param({"FORK_PER_CASE", "WARM_POOL", "BATCHED"})
+    public String runMode;
+
+    @Param({"true", "false"})
+    public boolean compileCache;
+
+    private Path folder;
+    private Object coordinator;
+    private MethodHandle executeTestSuite;
+
+    @Setup
+    public void setUp()
+    {
+        folder = Fixtures.createTempFolder("suite");
+        Path root = folder.resolve("submissions");
+        Path save = folder.resolve("save");
+        Fixtures.writeSubmissions(root, studentCount);
+
+        StringBuilder suite = new StringBuilder("Bench Suite\n");
+        for (int i = 0; i < testCaseCount; i++)
+        {
+            Fixtures.write(save.resolve("test-cases").resolve("Case_" + i + ".testcase"),
+                "Case " + i + "\nInt\n" + i + " " + (i * 7) + "\n" + (i * 8) + "\n");
+            suite.append("Case_").append(i).append(".testcase\n");
+        }
+        Fixtures.write(save.resolve("test-suites").resolve("Bench_Suite.suite"), suite.toString());
+
+        coordinator = Grader.create("Coordinator", new Class<?>[0]);
+        Grader.call(coordinator, "setRootFolder", new Class<?>[] {String.class}, root.toString());
+        Grader.call(coordinator, "setSaveFolder", new Class<?>[] {String.class}, save.toString());
+        Grader.call(coordinator, "loadTestSuite", new Class<?>[0]);
+
+        Object settings = Grader.call(coordinator, "getExecutionSettings", new Class<?>[0]);
+        Class<?> runModeType = Grader.type("RunMode");
+        Grader.call(settings, "setRunMode", new Class<?>[] {runModeType}, runModeValue(runModeType));
+        Grader.call(settings, "setResultReuseEnabled", new Class<?>[] {boolean.class}, false);
+        Grader.call(settings, "setCompileCacheEnabled", new Class<?>[] {boolean.class}, compileCache);
+
+        executeTestSuite = Grader.method("Coordinator", "executeTestSuite", String.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public List<?> executeTestSuite() throws Throwable
+    {
+        return (List<?>) executeTestSuite.invoke(coordinator, "");
+    }
+
+    private Object runModeValue(Class<?> runModeType)
+    {
+        for (Object constant : runModeType.getEnumConstants())
+        {
+            if (constant.toString().equals(runMode))
+            {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("Unknown run mode: " + runMode);
+    }
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/* Generates the synthetic submission trees and test files the benchmarks run on.
+* Everything is written below a temporary folder that delete() removes again.*/
+final class Fixtures
+{
+    private Fixtures()
+    {
+    }
+
+    // Creates a new empty temporary folder
+    static Path createTempFolder(String prefix)
+    {
+        try
+        {
+            return Files.createTempDirectory("grader-bench-" + prefix);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Writes a text file (creating parent folders as needed)
+    static Path write(Path file, String content)
+    {
+        try
+        {
+            Files.createDirectories(file.getParent());
+            return Files.writeString(file, content, StandardCharsets.UTF_8);
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Source of a student program that reads two ints and prints their sum
+    // Additional: Every third student gets a wrong answer so both PASSED and FAILED paths are measured.
+    static String adderSource(String className, int student)
+    {
+        String sum = student % 3 == 2 ? "a + b + 1" : "a + b";
+        return "import java.util.Scanner;\n"
+            + "public class " + className + "\n{\n"
+            + "    public static void main(String[] args)\n    {\n"
+            + "        Scanner in = new Scanner(System.in);\n"
+            + "        int a = in.nextInt();\n"
+            + "        int b = in.nextInt();\n"
+            + "        System.out.println(" + sum + ");\n"
+            + "    }\n}\n";
+    }
+
+    // Source of a program that prints the number of bytes given on stdin (as lines of 'x')
+    static String printerSource(String className)
+    {
+        return "public class " + className + "\n{\n"
+            + "    public static void main(String[] args)\n    {\n"
+            + "        long bytes = new java.util.Scanner(System.in).nextLong();\n"
+            + "        StringBuilder line = new StringBuilder();\n"
+            + "        for (int i = 0; i < 79; i++) line.append('x');\n"
+            + "        String text = line.toString();\n"
+            + "        StringBuilder out = new StringBuilder();\n"
+            + "        for (long written = 0; written < bytes; written += 80) out.append(text).append('\\n');\n"
+            + "        System.out.print(out);\n"
+            + "    }\n}\n";
+    }
+
+    // Creates count student folders (student00000, ...) below root, each with an adder program
+    static void writeSubmissions(Path root, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            String student = String.format("student%05d", i);
+            write(root.resolve(student).resolve("Adder.java"), adderSource("Adder", i));
+        }
+    }
+
+    // Deletes a folder and everything in it (best effort)
+    static void delete(Path folder)
+    {
+        if (folder == null || !Files.exists(folder))
+        {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(folder))
+        {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        catch (IOException e)
+        {
+            System.err.println("Could not delete " + folder + ": " + e.getMessage());
+        }
+    }
+}
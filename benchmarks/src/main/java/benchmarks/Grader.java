@@ -0,0 +1,78 @@
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+/* Gives the benchmarks access to the grader classes.
+* The grader lives in the default package, which Java code in a named package cannot import,
+* and JMH refuses benchmarks in the default package - so everything goes through reflection.
+* Lookups happen once in @Setup; the measured code only calls the returned MethodHandles.*/
+final class Grader
+{
+    private Grader()
+    {
+    }
+
+    // Returns the grader class with the given (default package) name
+    static Class<?> type(String className)
+    {
+        try
+        {
+            return Class.forName(className);
+        }
+        catch (ClassNotFoundException e)
+        {
+            throw new IllegalStateException("Grader class not found: " + className, e);
+        }
+    }
+
+    // Creates an instance of a grader class with the constructor matching parameterTypes
+    static Object create(String className, Class<?>[] parameterTypes, Object... args)
+    {
+        try
+        {
+            Constructor<?> constructor = type(className).getDeclaredConstructor(parameterTypes);
+            constructor.setAccessible(true);
+            return constructor.newInstance(args);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Cannot create " + className, e);
+        }
+    }
+
+    // Returns a handle for a (possibly private) method of a grader class
+    // Additional: For instance methods the first argument of the handle is the receiver.
+    static MethodHandle method(String className, String methodName, Class<?>... parameterTypes)
+    {
+        try
+        {
+            Method method = type(className).getDeclaredMethod(methodName, parameterTypes);
+            method.setAccessible(true);
+            return MethodHandles.lookup().unreflect(method);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new IllegalStateException("Cannot access " + className + "." + methodName, e);
+        }
+    }
+
+    // Calls a method once (setup code only - the lookup is not cached)
+    static Object call(Object target, String methodName, Class<?>[] parameterTypes, Object... args)
+    {
+        try
+        {
+            return method(target.getClass().getName(), methodName, parameterTypes).bindTo(target).invokeWithArguments(args);
+        }
+        catch (RuntimeException e)
+        {
+            throw e;
+        }
+        catch (Throwable e)
+        {
+            throw new IllegalStateException("Call to " + methodName + " failed", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package benchmarks;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures TestCase.loadFromFile and TestSuite.loadFromFile on files written by the grader itself
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadFilesBenchmark
+{
+    @Param({"100", "1048576"})
+    public int payloadBytes; // Size of the test case's input and expected output
+
+    @Param({"10", "1000"})
+    public int suiteSize; // Number of test cases listed in the suite
+
+    private Path folder;
+    private File testCaseFile;
+    private File suiteFile;
+    private MethodHandle loadTestCase;
+    private MethodHandle loadTestSuite;
+
+    @Setup
+    public void setUp()
+    {
+        folder = Fixtures.createTempFolder("files");
+        String saveFolder = folder.toString();
+        String payload = "7 ".repeat(payloadBytes / 2);
+        Object testCase = Grader.create("TestCase", new Class<?>[] {String.class, String.class, String.class, String.class},
+            "Bench Case", payload, payload, "String");
+        Grader.call(testCase, "saveToFile", new Class<?>[] {String.class}, saveFolder);
+        testCaseFile = folder.resolve("test-cases").resolve("Bench_Case.testcase").toFile();
+
+        Object suite = Grader.create("TestSuite", new Class<?>[] {String.class}, "Bench Suite");
+        for (int i = 0; i < suiteSize; i++)
+        {
+            Grader.call(suite, "addTestCaseFilename", new Class<?>[] {String.class}, "Case_" + i + ".testcase");
+        }
+        Grader.call(suite, "saveToFile", new Class<?>[] {String.class}, saveFolder);
+        suiteFile = folder.resolve("test-suites").resolve("Bench_Suite.suite").toFile();
+
+        loadTestCase = Grader.method("TestCase", "loadFromFile", File.class);
+        loadTestSuite = Grader.method("TestSuite", "loadFromFile", File.class);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public Object loadTestCase() throws Throwable
+    {
+        return loadTestCase.invoke(testCaseFile);
+    }
+
+    @Benchmark
+    public Object loadTestSuite() throws Throwable
+    {
+        return loadTestSuite.invoke(suiteFile);
+    }
+}
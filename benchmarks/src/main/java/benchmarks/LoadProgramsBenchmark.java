@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures ListOfPrograms.loadFromRootFolder (submission discovery) over a synthetic tree of student folders
+// Additional: rescanUnchanged repeats the scan on the same list, where nothing changed since the last scan.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LoadProgramsBenchmark
+{
+    @Param({"10000"})
+    public int folderCount;
+
+    private Path root;
+    private MethodHandle loadFromRootFolder;
+    private Object scannedPrograms; // List that has already scanned the tree once
+
+    @Setup
+    public void setUp()
+    {
+        root = Fixtures.createTempFolder("tree");
+        Fixtures.writeSubmissions(root, folderCount);
+        loadFromRootFolder = Grader.method("ListOfPrograms", "loadFromRootFolder", File.class, String.class);
+        scannedPrograms = Grader.create("ListOfPrograms", new Class<?>[0]);
+        Grader.call(scannedPrograms, "loadFromRootFolder", new Class<?>[] { File.class, String.class }, root.toFile(), "");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Fixtures.delete(root);
+    }
+
+    @Benchmark
+    public Object loadFromRootFolder() throws Throwable
+    {
+        Object programs = Grader.create("ListOfPrograms", new Class<?>[0]);
+        loadFromRootFolder.invoke(programs, root.toFile(), "");
+        return programs;
+    }
+
+    @Benchmark
+    public Object rescanUnchanged() throws Throwable
+    {
+        loadFromRootFolder.invoke(scannedPrograms, root.toFile(), "");
+        return scannedPrograms;
+    }
+}
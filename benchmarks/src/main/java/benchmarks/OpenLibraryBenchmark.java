@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures opening a test library (Coordinator.setSaveFolder) stored as one file per case or as a packed library
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OpenLibraryBenchmark
+{
+    @Param({"20000"})
+    public int testCaseCount;
+
+    @Param({"files", "packed"})
+    public String layout;
+
+    private Path folder;
+
+    @Setup
+    public void setUp()
+    {
+        folder = Fixtures.createTempFolder("library");
+        StringBuilder suite = new StringBuilder("Bench Suite\n");
+        for (int i = 0; i < testCaseCount; i++)
+        {
+            Fixtures.write(folder.resolve("test-cases").resolve("Case_" + i + ".testcase"),
+                "Case " + i + "\nInt\n" + i + " " + i + "\n" + (2 * i) + "\n");
+            suite.append("Case_").append(i).append(".testcase\n");
+        }
+        Fixtures.write(folder.resolve("test-suites").resolve("Bench_Suite.suite"), suite.toString());
+        if (layout.equals("packed"))
+        {
+            Object coordinator = open();
+            Grader.call(coordinator, "packLibrary", new Class<?>[0]);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public Object open()
+    {
+        Object coordinator = Grader.create("Coordinator", new Class<?>[0]);
+        Grader.call(coordinator, "setSaveFolder", new Class<?>[] {String.class}, folder.toString());
+        return coordinator;
+    }
+}
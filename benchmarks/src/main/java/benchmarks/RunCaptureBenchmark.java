@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.io.File;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Measures Program.run (one 'java' process per call) and its stdout capture at different output sizes
+// Additional: Runs through execute(input, settings) so the output limit can be raised above the largest size.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RunCaptureBenchmark
+{
+    @Param({"0", "65536", "1048576", "8388608"})
+    public long outputBytes;
+
+    private Path folder;
+    private Object program;
+    private Object settings;
+    private MethodHandle execute;
+    private String input;
+
+    @Setup
+    public void setUp()
+    {
+        folder = Fixtures.createTempFolder("run");
+        File source = Fixtures.write(folder.resolve("Printer.java"), Fixtures.printerSource("Printer")).toFile();
+        program = Grader.create("Program", new Class<?>[] {String.class, File.class}, "printer", source);
+        settings = Grader.create("ExecutionSettings", new Class<?>[0]);
+        Grader.call(settings, "setOutputLimitBytes", new Class<?>[] {long.class}, 64L << 20); // Keep all output
+        if (!(boolean) Grader.call(program, "ensureCompiled", new Class<?>[] {settings.getClass()}, settings))
+        {
+            throw new IllegalStateException("Benchmark program did not compile");
+        }
+        execute = Grader.method("Program", "execute", String.class, settings.getClass());
+        input = outputBytes + "\n";
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        Fixtures.delete(folder);
+    }
+
+    @Benchmark
+    public Object run() throws Throwable
+    {
+        return execute.invoke(program, input, settings);
+    }
+}